@@ -1,5 +1,6 @@
 import apiClient from './client'
-import type { Dream, DreamRequest } from '@/types'
+import { useAuthStore } from '@/stores/auth'
+import type { AISummaryStreamEvent, Dream, DreamRequest } from '@/types'
 
 // 后端分页响应格式
 interface DreamPageResponse {
@@ -12,6 +13,23 @@ interface DreamPageResponse {
   hasPrevious: boolean
 }
 
+// 搜索结果
+export interface DreamSearchResult {
+  id: number
+  title: string
+  snippet: string
+  dreamDate: string
+  dreamType: string
+  isFavorite: boolean
+  tags?: string[]
+  score: number | null
+  createdAt: string
+}
+
+interface DreamSearchPageResponse extends Omit<DreamPageResponse, 'content'> {
+  content: DreamSearchResult[]
+}
+
 export const dreamApi = {
   // 获取梦境列表
   getDreams(params?: { 
@@ -40,11 +58,37 @@ export const dreamApi = {
     return apiClient.put(`/dreams/${id}`, data)
   },
 
+  // 部分更新梦境（只更新传入的字段）
+  patchDream(id: number, data: Partial<DreamRequest>): Promise<{ id: number; updatedFields: string[] }> {
+    return apiClient.patch(`/dreams/${id}`, data)
+  },
+
   // 删除梦境
   deleteDream(id: number): Promise<void> {
     return apiClient.delete(`/dreams/${id}`)
   },
 
+  // 批量导入梦境（NDJSON 或带表头的 CSV 文件）
+  importDreams(file: File, generateAISummary = false): Promise<{
+    total: number
+    imported: number
+    failed: number
+    aiSummaryQueued: number
+    errors: { line: number; message: string }[]
+    errorsTruncated: boolean
+  }> {
+    const format = file.name.toLowerCase().endsWith('.csv') ? 'csv' : 'ndjson'
+    return apiClient.post('/dreams/import', file, {
+      params: { format, generateAISummary },
+      headers: { 'Content-Type': format === 'csv' ? 'text/csv' : 'application/x-ndjson' }
+    })
+  },
+
+  // 导出全部梦境及AI分析（返回文件内容）
+  exportDreams(format: 'ndjson' | 'csv' | 'json' = 'ndjson'): Promise<Blob> {
+    return apiClient.get('/dreams/export', { params: { format }, responseType: 'blob' })
+  },
+
   // 切换收藏状态
   toggleFavorite(id: number): Promise<{ isFavorite: boolean }> {
     return apiClient.put(`/dreams/${id}/favorite`)
@@ -55,24 +99,71 @@ export const dreamApi = {
     return apiClient.get('/dreams/favorites')
   },
 
-  // 生成/重新生成AI分析
-  generateAISummary(id: number): Promise<{ status: string; estimatedTime: number }> {
-    return apiClient.post(`/dreams/${id}/ai-summary/regenerate`)
+  // 生成/重新生成AI分析；输入未变化时直接复用已有结果，force 为 true 时强制重新调用模型
+  generateAISummary(id: number, force = false): Promise<{ status: string; queuePosition: number; estimatedTime: number }> {
+    return apiClient.post(`/dreams/${id}/ai-summary/regenerate`, null, { params: { force } })
+  },
+
+  // 流式生成AI分析（SSE），逐个事件回调；EventSource 无法携带认证头，这里用 fetch 读取事件流
+  async streamAISummary(id: number, force: boolean, onEvent: (event: AISummaryStreamEvent) => void): Promise<void> {
+    const authStore = useAuthStore()
+    const response = await fetch(`/api/dreams/${id}/ai-summary/stream?force=${force}`, {
+      headers: {
+        Accept: 'text/event-stream',
+        ...(authStore.token ? { Authorization: `Bearer ${authStore.token}` } : {})
+      }
+    })
+    if (!response.ok || !response.body) {
+      throw new Error(`AI 分析流式请求失败: ${response.status}`)
+    }
+
+    const reader = response.body.pipeThrough(new TextDecoderStream()).getReader()
+    let buffer = ''
+    for (;;) {
+      const { value, done } = await reader.read()
+      if (done) break
+      buffer += value.replace(/\r\n/g, '\n')
+
+      // 事件之间以空行分隔
+      let boundary: number
+      while ((boundary = buffer.indexOf('\n\n')) !== -1) {
+        const block = buffer.slice(0, boundary)
+        buffer = buffer.slice(boundary + 2)
+
+        let event = 'message'
+        const data: string[] = []
+        for (const line of block.split('\n')) {
+          if (line.startsWith('event:')) {
+            event = line.slice(6).trim()
+          } else if (line.startsWith('data:')) {
+            data.push(line.slice(5).replace(/^ /, ''))
+          }
+        }
+        if (data.length) {
+          onEvent({ event, data: JSON.parse(data.join('\n')) } as AISummaryStreamEvent)
+        }
+      }
+    }
   },
 
   // 获取梦境统计
-  getStatistics(): Promise<{
+  getStatistics(params?: { startDate?: string; endDate?: string }): Promise<{
     totalDreams: number
     totalFavorites: number
+    dreamsByType: Record<string, number>
     dreamsByMood: Record<string, number>
+    dreamsByMoodBeforeSleep: Record<string, number>
+    dreamsBySleepQuality: Record<string, number>
     dreamsByMonth: Record<string, number>
-    averageSleepQuality: number
+    averageSleepQuality: number | null
+    averageVividness: number | null
+    dreamFrequency: { date: string; count: number }[]
   }> {
-    return apiClient.get('/dreams/statistics')
+    return apiClient.get('/dreams/statistics', { params })
   },
 
-  // 搜索梦境
-  searchDreams(keyword: string): Promise<Dream[]> {
-    return apiClient.get('/dreams/search', { params: { keyword } })
+  // 搜索梦境（按相关度排序，page 从 1 开始）
+  searchDreams(keyword: string, page = 1, size = 10): Promise<DreamSearchPageResponse> {
+    return apiClient.get('/dreams/search', { params: { keyword, page, size } })
   }
 }
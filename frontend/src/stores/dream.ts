@@ -1,6 +1,6 @@
 import { defineStore } from 'pinia'
 import { ref, computed } from 'vue'
-import type { Dream, DreamRequest } from '@/types'
+import type { AISummary, Dream, DreamRequest } from '@/types'
 import { dreamApi } from '@/api/dream'
 
 export const useDreamStore = defineStore('dream', () => {
@@ -164,18 +164,80 @@ export const useDreamStore = defineStore('dream', () => {
     }
   }
 
-  // 生成AI分析（带轮询）
-  async function generateAISummary(id: number) {
+  // 生成AI分析：优先流式接收，边生成边更新当前梦境；
+  // 任务已在进行、已安排重试或流式请求不可用时改为触发后轮询；force 为 true 时不复用已有结果
+  async function generateAISummary(id: number, force = false) {
+    let outcome: { summary?: AISummary; failure?: string } = {}
     try {
-      // 先触发生成
-      await dreamApi.generateAISummary(id)
+      outcome = await streamAISummary(id, force)
+    } catch (error) {
+      console.warn('流式生成AI分析失败，改为轮询:', error)
+    }
+    if (outcome.summary) {
+      return outcome.summary
+    }
+    if (outcome.failure) {
+      throw new Error(outcome.failure)
+    }
+    return pollAISummary(id, force)
+  }
+
+  // 流式生成AI分析，文本字段逐段追加，结构化字段完整后写入
+  async function streamAISummary(id: number, force: boolean) {
+    const outcome: { summary?: AISummary; failure?: string } = {}
+    const target = () => (currentDream.value?.id === id ? currentDream.value : null)
+    const dream = target()
+    if (dream) {
+      // 清空旧结果，流式内容从头追加
+      dream.aiSummary = { id: dream.aiSummary?.id, dreamId: id, status: 'PENDING', summary: '' } as AISummary
+    }
+
+    await dreamApi.streamAISummary(id, force, (e) => {
+      const partial = target()?.aiSummary as Record<string, unknown> | undefined
+      switch (e.event) {
+        case 'delta':
+          if (partial) partial[e.data.field] = ((partial[e.data.field] as string) ?? '') + e.data.text
+          break
+        case 'field':
+          if (partial) partial[e.data.field] = e.data.value
+          break
+        case 'done':
+          outcome.summary = e.data
+          break
+        case 'error':
+          // DEFERRED 表示已安排后台重试，交给轮询
+          if (e.data.status === 'FAILED') outcome.failure = e.data.message || 'AI 分析生成失败'
+          break
+      }
+    })
+
+    if (outcome.summary) {
+      const current = target()
+      if (current) {
+        current.aiSummary = outcome.summary
+      }
+      const item = dreams.value.find(d => d.id === id)
+      if (item) {
+        item.aiSummary = outcome.summary
+      }
+    }
+    return outcome
+  }
+
+  // 触发生成并轮询结果
+  async function pollAISummary(id: number, force: boolean) {
+    try {
+      // 先触发生成，返回排队位置与预计耗时（命中结果缓存时已是 COMPLETED）
+      const ticket = await dreamApi.generateAISummary(id, force)
       
-      // 轮询获取结果，最多等待 60 秒
-      const maxAttempts = 30
+      // 轮询获取结果，至少等待 60 秒，排队较长时按预计耗时的两倍延长
       const pollInterval = 2000 // 2秒轮询一次
+      const maxAttempts = Math.max(30, Math.ceil((ticket.estimatedTime * 2000) / pollInterval))
       
       for (let attempt = 0; attempt < maxAttempts; attempt++) {
-        await new Promise(resolve => setTimeout(resolve, pollInterval))
+        if (attempt > 0 || ticket.status !== 'COMPLETED') {
+          await new Promise(resolve => setTimeout(resolve, pollInterval))
+        }
         
         // 重新获取梦境详情
         const dream = await dreamApi.getDream(id)
@@ -45,6 +45,8 @@ export interface Dream {
   userId: number
   title: string
   content: string
+  // 列表/收藏接口只返回正文前 200 个字符
+  contentPreview?: string
   dreamDate: string
   sleepStartTime?: string
   sleepEndTime?: string
@@ -90,12 +92,21 @@ export interface AISummary {
   psychologicalInsight?: string
   advice?: string
   aiModel?: string
-  status: 'PENDING' | 'COMPLETED' | 'FAILED'
+  cacheHit?: boolean // 直接复用了输入相同的已有结果
+  status: 'PENDING' | 'DEFERRED' | 'COMPLETED' | 'FAILED'
   errorMessage?: string
   createdAt: string
   updatedAt: string
 }
 
+// AI分析流式事件（GET /dreams/{id}/ai-summary/stream）
+export type AISummaryStreamEvent =
+  | { event: 'delta'; data: { field: string; text: string } }
+  | { event: 'field'; data: { field: string; value: unknown } }
+  | { event: 'done'; data: AISummary }
+  | { event: 'error'; data: { status?: 'DEFERRED' | 'FAILED'; message?: string } }
+  | { event: 'status'; data: { status: AISummary['status']; queuePosition: number; estimatedTime: number } }
+
 export interface Keywords {
   primary: string[]
   secondary: string[]
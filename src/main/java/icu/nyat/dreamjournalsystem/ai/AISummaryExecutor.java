@@ -0,0 +1,165 @@
+package icu.nyat.dreamjournalsystem.ai;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AI 总结专用线程池
+ * 模型调用是长时间阻塞的 I/O，放在独立的有界线程池中执行，不与其他 @Async 任务争抢线程。
+ * 任务按空闲线程数从 ai_jobs 领取，本地队列只作缓冲，已满时抛出 {@link RejectedExecutionException}。
+ * 流式、同步生成在调用方线程上调用模型，通过 {@link #tryReserve()} 占用同一组槽位，
+ * 节点上同时进行的模型调用数以线程数为上限。
+ */
+@Slf4j
+@Component
+public class AISummaryExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final int threads;
+
+    /**
+     * 在线程池之外进行中的模型调用数
+     */
+    private final AtomicInteger reserved = new AtomicInteger();
+
+    /**
+     * 单个任务耗时的指数移动平均（毫秒），用于估算排队等待时间
+     */
+    private volatile double averageMillis;
+
+    public AISummaryExecutor(MeterRegistry meterRegistry,
+                             @Value("${ai.executor.threads:4}") int threads,
+                             @Value("${ai.executor.queue-capacity:16}") int queueCapacity,
+                             @Value("${ai.executor.initial-estimate:10s}") Duration initialEstimate) {
+        AtomicInteger counter = new AtomicInteger();
+        this.threads = threads;
+        this.averageMillis = initialEstimate.toMillis();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ai-summary-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "ai-summary");
+    }
+
+    /**
+     * 提交生成任务
+     *
+     * @throws RejectedExecutionException 队列已满或线程池已关闭
+     */
+    public void submit(Long dreamId, Runnable task) {
+        executor.execute(new Task(dreamId, task));
+    }
+
+    /**
+     * 可立即开始执行的任务数（空闲线程数减去本地排队数与池外占用的槽位）
+     */
+    public int availableSlots() {
+        return Math.max(0, threads - executor.getActiveCount() - executor.getQueue().size() - reserved.get());
+    }
+
+    /**
+     * 为在线程池之外进行的模型调用（流式、同步生成）占用一个槽位
+     *
+     * @return 没有空闲槽位时返回 false；成功时调用方必须在调用结束后 {@link #release()}
+     */
+    public synchronized boolean tryReserve() {
+        if (availableSlots() == 0) {
+            return false;
+        }
+        reserved.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 归还 {@link #tryReserve()} 占用的槽位
+     */
+    public void release() {
+        reserved.decrementAndGet();
+    }
+
+    /**
+     * 按位置估算完成时间：位置 0 视为正在执行，约需一个平均耗时；
+     * 其余位置按并发度折算需要等待的轮数
+     */
+    public Admission estimate(int position) {
+        long rounds = position == 0 ? 1 : (position + threads - 1) / threads + 1;
+        return new Admission(position, Math.max(1, Math.round(rounds * averageMillis / 1000)));
+    }
+
+    /**
+     * 停止接收任务并返回仍在排队的梦境ID（正在执行的任务会被中断）
+     */
+    public synchronized List<Long> shutdown() {
+        List<Long> pending = new ArrayList<>();
+        for (Runnable runnable : executor.shutdownNow()) {
+            if (runnable instanceof Task task) {
+                pending.add(task.dreamId());
+            }
+        }
+        return pending;
+    }
+
+    @PreDestroy
+    public void close() {
+        List<Long> pending = shutdown();
+        if (!pending.isEmpty()) {
+            log.info("AI 总结线程池关闭，丢弃 {} 个待执行任务", pending.size());
+        }
+    }
+
+    private void recordDuration(long millis) {
+        // 只在工作线程中更新，竞争写入丢失个别样本不影响估算
+        averageMillis = averageMillis * 0.8 + millis * 0.2;
+    }
+
+    /**
+     * 排队情况
+     *
+     * @param position         队列位置（0 表示已开始执行）
+     * @param estimatedSeconds 预计完成所需秒数
+     */
+    public record Admission(int position, long estimatedSeconds) {
+    }
+
+    private final class Task implements Runnable {
+
+        private final Long dreamId;
+        private final Runnable body;
+
+        private Task(Long dreamId, Runnable body) {
+            this.dreamId = dreamId;
+            this.body = body;
+        }
+
+        Long dreamId() {
+            return dreamId;
+        }
+
+        @Override
+        public void run() {
+            long start = System.currentTimeMillis();
+            try {
+                body.run();
+            } finally {
+                recordDuration(System.currentTimeMillis() - start);
+            }
+        }
+    }
+}
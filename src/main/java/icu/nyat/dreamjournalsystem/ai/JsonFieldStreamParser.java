@@ -0,0 +1,202 @@
+package icu.nyat.dreamjournalsystem.ai;
+
+/**
+ * 模型流式输出的增量 JSON 解析器
+ * <p>
+ * 按任意切分的文本片段喂入，只解析顶层对象：字符串字段边生成边回调已解码的增量文本，
+ * 对象、数组等其他字段在值完整后回调一次原始 JSON。第一个 { 之前的内容（如 ```json 标记）
+ * 和顶层对象结束后的内容会被忽略。非线程安全，每次生成使用一个实例。
+ */
+public class JsonFieldStreamParser {
+
+    /**
+     * 字段回调
+     */
+    public interface Listener {
+
+        /**
+         * 字符串字段新增的文本（已解码转义）
+         */
+        void onText(String field, String delta);
+
+        /**
+         * 非字符串字段的完整原始 JSON
+         */
+        void onValue(String field, String json);
+    }
+
+    private enum State {
+        BEFORE_OBJECT, EXPECT_KEY, KEY, EXPECT_COLON, EXPECT_VALUE, TEXT, NESTED, SCALAR, DONE
+    }
+
+    private final Listener listener;
+
+    private State state = State.BEFORE_OBJECT;
+    private final StringBuilder key = new StringBuilder();
+    private final StringBuilder value = new StringBuilder();
+
+    /**
+     * 字符串解码状态：是否在转义中、\\uXXXX 已读取的位数（-1 表示不在 unicode 转义中）
+     */
+    private boolean escape;
+    private int unicodeDigits = -1;
+    private int unicodeValue;
+
+    /**
+     * 嵌套值的深度与其中字符串的状态，只用于找到值的结束位置
+     */
+    private int nestedDepth;
+    private boolean nestedInString;
+    private boolean nestedEscape;
+
+    public JsonFieldStreamParser(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 喂入一段文本；同一字符串字段在本段内的增量合并为一次回调
+     */
+    public void feed(CharSequence chunk) {
+        for (int i = 0; i < chunk.length(); i++) {
+            accept(chunk.charAt(i));
+        }
+        flushText();
+    }
+
+    /**
+     * 顶层对象是否已结束
+     */
+    public boolean isDone() {
+        return state == State.DONE;
+    }
+
+    private void accept(char c) {
+        switch (state) {
+            case BEFORE_OBJECT -> {
+                if (c == '{') {
+                    state = State.EXPECT_KEY;
+                }
+            }
+            case EXPECT_KEY -> {
+                if (c == '"') {
+                    key.setLength(0);
+                    state = State.KEY;
+                } else if (c == '}') {
+                    state = State.DONE;
+                }
+            }
+            case KEY -> {
+                if (!escape && unicodeDigits < 0 && c == '"') {
+                    state = State.EXPECT_COLON;
+                } else {
+                    decode(c, key);
+                }
+            }
+            case EXPECT_COLON -> {
+                if (c == ':') {
+                    state = State.EXPECT_VALUE;
+                }
+            }
+            case EXPECT_VALUE -> {
+                if (c == '"') {
+                    value.setLength(0);
+                    state = State.TEXT;
+                } else if (c == '{' || c == '[') {
+                    value.setLength(0);
+                    value.append(c);
+                    nestedDepth = 1;
+                    nestedInString = false;
+                    nestedEscape = false;
+                    state = State.NESTED;
+                } else if (!Character.isWhitespace(c)) {
+                    value.setLength(0);
+                    value.append(c);
+                    state = State.SCALAR;
+                }
+            }
+            case TEXT -> {
+                if (!escape && unicodeDigits < 0 && c == '"') {
+                    flushText();
+                    state = State.EXPECT_KEY;
+                } else {
+                    decode(c, value);
+                }
+            }
+            case NESTED -> acceptNested(c);
+            case SCALAR -> {
+                if (c == ',' || c == '}') {
+                    listener.onValue(key.toString(), value.toString().trim());
+                    state = c == '}' ? State.DONE : State.EXPECT_KEY;
+                } else {
+                    value.append(c);
+                }
+            }
+            case DONE -> {
+            }
+        }
+    }
+
+    private void acceptNested(char c) {
+        value.append(c);
+        if (nestedInString) {
+            if (nestedEscape) {
+                nestedEscape = false;
+            } else if (c == '\\') {
+                nestedEscape = true;
+            } else if (c == '"') {
+                nestedInString = false;
+            }
+            return;
+        }
+        if (c == '"') {
+            nestedInString = true;
+        } else if (c == '{' || c == '[') {
+            nestedDepth++;
+        } else if ((c == '}' || c == ']') && --nestedDepth == 0) {
+            listener.onValue(key.toString(), value.toString());
+            state = State.EXPECT_KEY;
+        }
+    }
+
+    /**
+     * 解码字符串中的一个字符（处理 \n、\"、\\uXXXX 等转义）
+     */
+    private void decode(char c, StringBuilder target) {
+        if (unicodeDigits >= 0) {
+            unicodeValue = unicodeValue * 16 + Character.digit(c, 16);
+            if (++unicodeDigits == 4) {
+                target.append((char) unicodeValue);
+                unicodeDigits = -1;
+            }
+            return;
+        }
+        if (!escape) {
+            if (c == '\\') {
+                escape = true;
+            } else {
+                target.append(c);
+            }
+            return;
+        }
+        escape = false;
+        switch (c) {
+            case 'n' -> target.append('\n');
+            case 't' -> target.append('\t');
+            case 'r' -> target.append('\r');
+            case 'b' -> target.append('\b');
+            case 'f' -> target.append('\f');
+            case 'u' -> {
+                unicodeDigits = 0;
+                unicodeValue = 0;
+            }
+            default -> target.append(c);
+        }
+    }
+
+    private void flushText() {
+        if (state == State.TEXT && value.length() > 0) {
+            listener.onText(key.toString(), value.toString());
+            value.setLength(0);
+        }
+    }
+}
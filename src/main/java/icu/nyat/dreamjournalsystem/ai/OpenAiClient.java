@@ -0,0 +1,146 @@
+package icu.nyat.dreamjournalsystem.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.theokanning.openai.client.OpenAiApi;
+import com.theokanning.openai.completion.chat.ChatCompletionChunk;
+import com.theokanning.openai.completion.chat.ChatCompletionRequest;
+import com.theokanning.openai.completion.chat.ChatCompletionResult;
+import com.theokanning.openai.service.OpenAiService;
+import io.reactivex.Flowable;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import retrofit2.Retrofit;
+import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
+import retrofit2.converter.jackson.JacksonConverterFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OpenAI 兼容接口客户端（单例）
+ * <p>
+ * 所有调用共享同一个 OkHttp 连接池（长 keep-alive，TLS 下通过 ALPN 协商 HTTP/2）、Retrofit 实例和
+ * ObjectMapper，避免每次调用重新建立连接与握手、重新预热序列化器。
+ * <p>
+ * 定期从 Environment 重新绑定 openai.* 配置，内容变化时原子替换为新客户端；
+ * 进行中的调用在旧客户端上完成，旧客户端只释放空闲连接与调度线程。
+ */
+@Slf4j
+@Component
+public class OpenAiClient {
+
+    private static final String PREFIX = "openai";
+
+    private final Environment environment;
+
+    /**
+     * 请求/响应序列化（OpenAiService 的默认配置），跨重建复用
+     */
+    private final ObjectMapper apiMapper = OpenAiService.defaultObjectMapper();
+
+    private volatile Connection connection;
+
+    public OpenAiClient(Environment environment) {
+        this.environment = environment;
+        this.connection = connect(bind());
+    }
+
+    /**
+     * 同步调用聊天补全接口，受 openai.timeout 总超时限制
+     */
+    public ChatCompletionResult createChatCompletion(ChatCompletionRequest request) {
+        return connection.service().createChatCompletion(request);
+    }
+
+    /**
+     * 流式调用聊天补全接口：订阅后在 OkHttp 调度线程上逐块回调，同样受 openai.timeout 总超时限制
+     */
+    public Flowable<ChatCompletionChunk> streamChatCompletion(ChatCompletionRequest request) {
+        return connection.service().streamChatCompletion(request);
+    }
+
+    /**
+     * 当前生效的配置（不要修改返回的对象）
+     */
+    public OpenAiProperties getProperties() {
+        return connection.properties();
+    }
+
+    /**
+     * 检查 openai.* 配置是否变化，变化时重建客户端
+     */
+    @Scheduled(fixedDelayString = "${openai.reload-interval:PT30S}")
+    public void reloadIfChanged() {
+        OpenAiProperties properties = bind();
+        if (!properties.equals(connection.properties())) {
+            reload(properties);
+        }
+    }
+
+    /**
+     * 按给定配置重建客户端；配置无效时保留当前客户端
+     */
+    public synchronized void reload(OpenAiProperties properties) {
+        Connection previous = connection;
+        try {
+            connection = connect(properties);
+        } catch (IllegalArgumentException e) {
+            log.error("openai 配置无效，继续使用当前客户端: {}", e.getMessage());
+            return;
+        }
+        log.info("openai 配置已变化，重建客户端: baseUrl={}, model={}", properties.getBaseUrl(), properties.getModel());
+        release(previous);
+    }
+
+    @PreDestroy
+    public void close() {
+        release(connection);
+    }
+
+    private OpenAiProperties bind() {
+        return Binder.get(environment).bind(PREFIX, OpenAiProperties.class).orElseGet(OpenAiProperties::new);
+    }
+
+    private Connection connect(OpenAiProperties properties) {
+        String authorization = "Bearer " + properties.getApiKey();
+        // 流式调用走异步调度，所有请求都发往同一主机，不再按默认的每主机 5 个限流
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(dispatcher.getMaxRequests());
+        OkHttpClient http = new OkHttpClient.Builder()
+                .addInterceptor(chain -> chain.proceed(chain.request().newBuilder()
+                        .header("Authorization", authorization)
+                        .build()))
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(properties.getPool().getMaxIdle(),
+                        properties.getPool().getKeepAlive().toMillis(), TimeUnit.MILLISECONDS))
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(properties.getConnectTimeout())
+                .readTimeout(properties.getReadTimeout())
+                .callTimeout(Duration.ofMillis(properties.getTimeout()))
+                .build();
+        Retrofit retrofit = new Retrofit.Builder()
+                .baseUrl(properties.getBaseUrl())
+                .client(http)
+                .addConverterFactory(JacksonConverterFactory.create(apiMapper))
+                .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
+                .build();
+        return new Connection(properties, http, new OpenAiService(retrofit.create(OpenAiApi.class)));
+    }
+
+    private static void release(Connection connection) {
+        connection.http().dispatcher().executorService().shutdown();
+        connection.http().connectionPool().evictAll();
+    }
+
+    private record Connection(OpenAiProperties properties, OkHttpClient http, OpenAiService service) {
+    }
+}
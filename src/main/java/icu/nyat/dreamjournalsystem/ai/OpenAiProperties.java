@@ -0,0 +1,51 @@
+package icu.nyat.dreamjournalsystem.ai;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * openai.* 配置
+ * 由 {@link OpenAiClient} 从 Environment 绑定，内容变化时重建客户端
+ */
+@Data
+public class OpenAiProperties {
+
+    private String apiKey;
+
+    private String model = "deepseek-chat";
+
+    private String baseUrl = "https://api.deepseek.com/v1/";
+
+    /**
+     * 单次调用总超时（毫秒），覆盖连接、发送请求与读取完整响应
+     */
+    private long timeout = 60000;
+
+    /**
+     * 建立连接（含 TLS 握手）超时
+     */
+    private Duration connectTimeout = Duration.ofSeconds(10);
+
+    /**
+     * 两次读取之间的最长间隔（流式响应时即两个分片之间）
+     */
+    private Duration readTimeout = Duration.ofSeconds(60);
+
+    private int maxTokens = 2000;
+
+    private double temperature = 0.7;
+
+    private Pool pool = new Pool();
+
+    /**
+     * 连接池：空闲连接保留时间应长于两次调用的间隔，才能复用连接而不是重新握手
+     */
+    @Data
+    public static class Pool {
+
+        private int maxIdle = 10;
+
+        private Duration keepAlive = Duration.ofMinutes(5);
+    }
+}
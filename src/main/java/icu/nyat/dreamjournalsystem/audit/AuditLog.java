@@ -0,0 +1,34 @@
+package icu.nyat.dreamjournalsystem.audit;
+
+import java.lang.annotation.*;
+
+/**
+ * 操作审计注解
+ * 方法正常返回后异步写入 operation_logs。targetId、userId 为 SpEL 表达式，
+ * 可引用方法参数（如 {@code #dreamId}）和返回值（{@code #result}）。
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface AuditLog {
+
+    /**
+     * 操作类型，如 DREAM_CREATE
+     */
+    String action();
+
+    /**
+     * 目标类型，如 DREAM
+     */
+    String targetType() default "";
+
+    /**
+     * 目标ID表达式
+     */
+    String targetId() default "";
+
+    /**
+     * 用户ID表达式，为空时取当前登录用户
+     */
+    String userId() default "";
+}
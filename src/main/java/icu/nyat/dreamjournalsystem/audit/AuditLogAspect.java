@@ -0,0 +1,100 @@
+package icu.nyat.dreamjournalsystem.audit;
+
+import icu.nyat.dreamjournalsystem.entity.OperationLog;
+import icu.nyat.dreamjournalsystem.security.UserPrincipal;
+import icu.nyat.dreamjournalsystem.util.IpUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.Ordered;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 操作审计切面
+ * 只在请求线程上组装日志并放入缓冲，写库由 {@link AuditLogWriter} 在后台完成；审计失败不影响业务。
+ * 切面位于事务之外，事务提交成功后才记录。
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class AuditLogAspect {
+
+    private static final int USER_AGENT_MAX_LENGTH = 500;
+
+    private final AuditLogWriter auditLogWriter;
+
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+    private final Map<String, Expression> expressionCache = new ConcurrentHashMap<>();
+
+    @AfterReturning(pointcut = "@annotation(auditLog)", returning = "result")
+    public void record(JoinPoint joinPoint, AuditLog auditLog, Object result) {
+        try {
+            MethodBasedEvaluationContext context = null;
+            if (StringUtils.hasText(auditLog.targetId()) || StringUtils.hasText(auditLog.userId())) {
+                MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+                context = new MethodBasedEvaluationContext(null, signature.getMethod(),
+                        joinPoint.getArgs(), parameterNameDiscoverer);
+                context.setVariable("result", result);
+            }
+
+            OperationLog operationLog = new OperationLog();
+            operationLog.setAction(auditLog.action());
+            operationLog.setTargetType(StringUtils.hasText(auditLog.targetType()) ? auditLog.targetType() : null);
+            operationLog.setTargetId(evaluateLong(auditLog.targetId(), context));
+            operationLog.setUserId(StringUtils.hasText(auditLog.userId())
+                    ? evaluateLong(auditLog.userId(), context)
+                    : currentUserId());
+            operationLog.setCreatedAt(LocalDateTime.now());
+
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            if (attributes instanceof ServletRequestAttributes servletAttributes) {
+                HttpServletRequest request = servletAttributes.getRequest();
+                operationLog.setIpAddress(IpUtils.getClientIp(request));
+                operationLog.setUserAgent(StringUtils.truncate(request.getHeader("User-Agent"), USER_AGENT_MAX_LENGTH));
+            }
+
+            auditLogWriter.submit(operationLog);
+        } catch (Exception e) {
+            log.warn("记录操作日志失败, action: {}: {}", auditLog.action(), e.getMessage());
+        }
+    }
+
+    private Long evaluateLong(String expression, MethodBasedEvaluationContext context) {
+        if (!StringUtils.hasText(expression)) {
+            return null;
+        }
+        Object value = expressionCache.computeIfAbsent(expression, parser::parseExpression).getValue(context);
+        return value instanceof Number number ? number.longValue() : null;
+    }
+
+    private Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal.getId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,159 @@
+package icu.nyat.dreamjournalsystem.audit;
+
+import icu.nyat.dreamjournalsystem.entity.OperationLog;
+import icu.nyat.dreamjournalsystem.mapper.OperationLogMapper;
+import icu.nyat.dreamjournalsystem.util.RingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 操作日志异步批量写入
+ * <p>
+ * 请求线程只向无锁环形缓冲写入，不会等待数据库；后台单线程按批次取出并以多行 INSERT 写入 operation_logs。
+ * 缓冲写满时按溢出策略处理：
+ * <ul>
+ *     <li>drop：丢弃新日志</li>
+ *     <li>sample：超过采样水位后只保留 1/sample-rate，写满时丢弃</li>
+ * </ul>
+ * 丢弃与采样数量通过 audit.events 指标暴露。
+ */
+@Slf4j
+@Component
+public class AuditLogWriter {
+
+    /**
+     * 缓冲溢出策略
+     */
+    public enum OverflowPolicy {
+        DROP, SAMPLE
+    }
+
+    private final OperationLogMapper operationLogMapper;
+    private final RingBuffer<OperationLog> buffer;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final OverflowPolicy overflowPolicy;
+    private final int sampleRate;
+    private final int sampleThreshold;
+
+    private final Counter accepted;
+    private final Counter dropped;
+    private final Counter sampledOut;
+    private final Counter failed;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public AuditLogWriter(OperationLogMapper operationLogMapper,
+                          MeterRegistry meterRegistry,
+                          @Value("${audit.enabled:true}") boolean enabled,
+                          @Value("${audit.buffer-size:8192}") int bufferSize,
+                          @Value("${audit.batch-size:200}") int batchSize,
+                          @Value("${audit.flush-interval:500ms}") Duration flushInterval,
+                          @Value("${audit.overflow-policy:drop}") OverflowPolicy overflowPolicy,
+                          @Value("${audit.sample-rate:10}") int sampleRate,
+                          @Value("${audit.sample-watermark:0.75}") double sampleWatermark) {
+        this.operationLogMapper = operationLogMapper;
+        this.buffer = new RingBuffer<>(bufferSize);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.overflowPolicy = overflowPolicy;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.sampleThreshold = (int) (buffer.capacity() * sampleWatermark);
+
+        this.accepted = meterRegistry.counter("audit.events", "result", "accepted");
+        this.dropped = meterRegistry.counter("audit.events", "result", "dropped");
+        this.sampledOut = meterRegistry.counter("audit.events", "result", "sampled_out");
+        this.failed = meterRegistry.counter("audit.events", "result", "failed");
+        meterRegistry.gauge("audit.buffer.size", buffer, RingBuffer::size);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::runLoop, "audit-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * 提交日志（不阻塞）
+     */
+    public void submit(OperationLog operationLog) {
+        if (!running) {
+            return;
+        }
+        if (overflowPolicy == OverflowPolicy.SAMPLE
+                && buffer.size() >= sampleThreshold
+                && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+            sampledOut.increment();
+            return;
+        }
+        if (!buffer.offer(operationLog)) {
+            dropped.increment();
+            return;
+        }
+        accepted.increment();
+        // 积累满一批时提前唤醒写入线程
+        if (buffer.size() >= batchSize) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    private void runLoop() {
+        List<OperationLog> batch = new ArrayList<>(batchSize);
+        while (running) {
+            if (buffer.drainTo(batch, batchSize) == 0) {
+                LockSupport.parkNanos(flushInterval.toNanos());
+                continue;
+            }
+            write(batch);
+        }
+    }
+
+    private void write(List<OperationLog> batch) {
+        try {
+            operationLogMapper.insertBatch(batch);
+        } catch (Exception e) {
+            // 审计为尽力而为，写入失败时丢弃该批次
+            failed.increment(batch.size());
+            log.error("批量写入操作日志失败, 丢弃 {} 条: {}", batch.size(), e.getMessage());
+        } finally {
+            batch.clear();
+        }
+    }
+
+    /**
+     * 正常关闭时停止写入线程并写完缓冲中的剩余日志
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (writerThread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(flushInterval.toMillis() + 5000);
+
+        List<OperationLog> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            write(batch);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package icu.nyat.dreamjournalsystem.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import icu.nyat.dreamjournalsystem.entity.AISummary;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * AI 生成结果缓存（按输入摘要寻址：本地 L1 + Redis L2，数据库兜底）
+ * <p>
+ * 键为提示词输入、模型、温度与提示词版本的 SHA-256 摘要，输入相同即结果可复用，
+ * 因此不需要失效：输入变化时摘要随之变化，强制重新生成时以新结果覆盖同一键。
+ * 只缓存结果字段（总结、关键词、分析、建议等），不含所属梦境与时间。
+ * <p>
+ * L1、L2 均未命中时调用 loader 查找数据库中摘要相同的已完成总结（Redis 过期或重启后仍可复用），命中后回填。
+ */
+@Slf4j
+@Component
+public class AIResultCache {
+
+    private static final String CACHE_NAME = "ai-result";
+    private static final String KEY_PREFIX = "ai:result:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, AISummary> local;
+    private final boolean enabled;
+    private final Duration ttl;
+
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter databaseHits;
+    private final Counter misses;
+
+    public AIResultCache(StringRedisTemplate redisTemplate,
+                         ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry,
+                         @Value("${ai.result-cache.enabled:true}") boolean enabled,
+                         @Value("${ai.result-cache.ttl:30d}") Duration ttl,
+                         @Value("${ai.result-cache.local-max-size:1000}") long localMaxSize,
+                         @Value("${ai.result-cache.local-ttl:1h}") Duration localTtl) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, CACHE_NAME);
+        this.localHits = meterRegistry.counter("ai.result.cache", "result", "local");
+        this.redisHits = meterRegistry.counter("ai.result.cache", "result", "redis");
+        this.databaseHits = meterRegistry.counter("ai.result.cache", "result", "database");
+        this.misses = meterRegistry.counter("ai.result.cache", "result", "miss");
+    }
+
+    /**
+     * 按摘要查找已生成的结果
+     *
+     * @param loader 查找数据库中摘要相同的已完成总结，没有时返回 null
+     * @return 只含结果字段的总结；未命中或缓存关闭时返回 null
+     */
+    public AISummary get(String digest, Supplier<AISummary> loader) {
+        if (!enabled) {
+            return null;
+        }
+
+        AISummary cached = local.getIfPresent(digest);
+        if (cached != null) {
+            localHits.increment();
+            return cached;
+        }
+
+        try {
+            String json = redisTemplate.opsForValue().get(KEY_PREFIX + digest);
+            if (json != null) {
+                AISummary result = objectMapper.readValue(json, AISummary.class);
+                redisHits.increment();
+                local.put(digest, result);
+                return result;
+            }
+        } catch (Exception e) {
+            // Redis 不可用时继续查库
+            log.warn("读取AI结果缓存失败, digest: {}: {}", digest, e.getMessage());
+        }
+
+        AISummary stored = loader.get();
+        if (stored == null) {
+            misses.increment();
+            return null;
+        }
+        databaseHits.increment();
+        AISummary result = resultOf(stored);
+        put(digest, result);
+        return result;
+    }
+
+    /**
+     * 写入（或覆盖）摘要对应的结果
+     */
+    public void put(String digest, AISummary summary) {
+        if (!enabled) {
+            return;
+        }
+        AISummary result = resultOf(summary);
+        local.put(digest, result);
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + digest, objectMapper.writeValueAsString(result), ttl);
+        } catch (Exception e) {
+            log.warn("写入AI结果缓存失败, digest: {}: {}", digest, e.getMessage());
+        }
+    }
+
+    private static AISummary resultOf(AISummary summary) {
+        AISummary result = new AISummary();
+        result.setSummary(summary.getSummary());
+        result.setKeywords(summary.getKeywords());
+        result.setEmotionAnalysis(summary.getEmotionAnalysis());
+        result.setSymbolAnalysis(summary.getSymbolAnalysis());
+        result.setPsychologicalInsight(summary.getPsychologicalInsight());
+        result.setAdvice(summary.getAdvice());
+        result.setConfidenceScore(summary.getConfidenceScore());
+        result.setTokensUsed(summary.getTokensUsed());
+        return result;
+    }
+}
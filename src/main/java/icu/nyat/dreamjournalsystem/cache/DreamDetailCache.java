@@ -0,0 +1,170 @@
+package icu.nyat.dreamjournalsystem.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import icu.nyat.dreamjournalsystem.dto.response.DreamDetailResponse;
+import icu.nyat.dreamjournalsystem.util.TransactionHooks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.function.Supplier;
+
+/**
+ * 梦境详情缓存（本地 L1 + Redis L2，读穿透）
+ * <p>
+ * Redis 中每个梦境有一个版本号，详情键为 {@code dream:detail:{dreamId}:{userId}:{version}}。
+ * 失效时递增版本号而不是删除详情键：并发读取在失效前读到旧版本号并回填的旧数据写在旧版本键下，
+ * 不会再被读到，旧键随 TTL 过期。键中包含所属用户，且返回前再次核对 userId，
+ * 非本人请求在加载时即被拒绝，不会写入缓存。
+ * <p>
+ * L1 只缓存从 Redis 命中的数据，保存时间很短，并通过 pub/sub 在所有节点上同步失效。
+ */
+@Slf4j
+@Component
+public class DreamDetailCache {
+
+    private static final String CACHE_NAME = "dream-detail";
+    private static final String VERSION_PREFIX = "dream:detail:ver:";
+    private static final String VALUE_PREFIX = "dream:detail:";
+    private static final ChannelTopic CHANNEL = new ChannelTopic("dream:detail:invalidations");
+
+    /**
+     * 递增版本号并续期。键过期后从当前毫秒时间戳重新开始，保证不会与仍未过期的旧版本键重号
+     */
+    private static final RedisScript<Long> BUMP_SCRIPT = new DefaultRedisScript<>(
+            "local version = redis.call('INCR', KEYS[1]) " +
+            "if version == 1 then version = tonumber(ARGV[1]) redis.call('SET', KEYS[1], version) end " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[2]) " +
+            "return version",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final Cache<Long, DreamDetailResponse> local;
+    private final boolean enabled;
+    private final Duration ttl;
+
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter misses;
+
+    public DreamDetailCache(StringRedisTemplate redisTemplate,
+                            RedisMessageListenerContainer listenerContainer,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${dream.detail-cache.enabled:true}") boolean enabled,
+                            @Value("${dream.detail-cache.ttl:10m}") Duration ttl,
+                            @Value("${dream.detail-cache.local-max-size:1000}") long localMaxSize,
+                            @Value("${dream.detail-cache.local-ttl:10s}") Duration localTtl) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, CACHE_NAME);
+        this.localHits = meterRegistry.counter("dream.detail.cache", "result", "local");
+        this.redisHits = meterRegistry.counter("dream.detail.cache", "result", "redis");
+        this.misses = meterRegistry.counter("dream.detail.cache", "result", "miss");
+    }
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener(
+                (message, pattern) -> evictLocal(new String(message.getBody(), StandardCharsets.UTF_8)),
+                CHANNEL);
+    }
+
+    /**
+     * 读取梦境详情，未命中时调用 loader 加载并回填 Redis
+     *
+     * @param loader 从数据库加载详情，需自行校验所属用户（非本人时抛出异常）
+     */
+    public DreamDetailResponse get(Long dreamId, Long userId, Supplier<DreamDetailResponse> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        DreamDetailResponse cached = local.getIfPresent(dreamId);
+        if (cached != null && userId.equals(cached.getUserId())) {
+            localHits.increment();
+            return cached;
+        }
+
+        String valueKey;
+        try {
+            String version = redisTemplate.opsForValue().get(VERSION_PREFIX + dreamId);
+            valueKey = VALUE_PREFIX + dreamId + ":" + userId + ":" + (version != null ? version : "0");
+            String json = redisTemplate.opsForValue().get(valueKey);
+            if (json != null) {
+                DreamDetailResponse detail = objectMapper.readValue(json, DreamDetailResponse.class);
+                if (userId.equals(detail.getUserId())) {
+                    redisHits.increment();
+                    local.put(dreamId, detail);
+                    return detail;
+                }
+            }
+        } catch (Exception e) {
+            // Redis 不可用时直接读库
+            log.warn("读取梦境详情缓存失败, dreamId: {}: {}", dreamId, e.getMessage());
+            return loader.get();
+        }
+
+        misses.increment();
+        DreamDetailResponse detail = loader.get();
+        try {
+            redisTemplate.opsForValue().set(valueKey, objectMapper.writeValueAsString(detail), ttl);
+        } catch (Exception e) {
+            log.warn("写入梦境详情缓存失败, dreamId: {}: {}", dreamId, e.getMessage());
+        }
+        return detail;
+    }
+
+    /**
+     * 使梦境详情缓存失效（在事务中调用时于提交后执行）
+     */
+    public void invalidate(Long dreamId) {
+        if (!enabled) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            local.invalidate(dreamId);
+            try {
+                redisTemplate.execute(BUMP_SCRIPT,
+                        Collections.singletonList(VERSION_PREFIX + dreamId),
+                        String.valueOf(System.currentTimeMillis()),
+                        String.valueOf(ttl.multipliedBy(2).toMillis()));
+                redisTemplate.convertAndSend(CHANNEL.getTopic(), String.valueOf(dreamId));
+            } catch (Exception e) {
+                log.error("梦境详情缓存失效失败, dreamId: {}", dreamId, e);
+            }
+        });
+    }
+
+    private void evictLocal(String dreamId) {
+        try {
+            local.invalidate(Long.valueOf(dreamId));
+        } catch (NumberFormatException e) {
+            log.warn("无效的梦境详情失效消息: {}", dreamId);
+        }
+    }
+}
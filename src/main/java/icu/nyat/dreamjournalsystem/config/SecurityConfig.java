@@ -1,6 +1,7 @@
 package icu.nyat.dreamjournalsystem.config;
 
 import icu.nyat.dreamjournalsystem.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -59,9 +60,14 @@ public class SecurityConfig {
                         // 公开接口
                         .requestMatchers("/auth/**").permitAll()
                         .requestMatchers("/error").permitAll()
+                        // 流式响应（如导出）完成后的异步分派，原请求已通过认证
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                         // 静态资源
                         .requestMatchers("/", "/index.html", "/static/**", "/assets/**").permitAll()
+                        // 监控端点
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         // 管理员接口
                         .requestMatchers("/admin/**").hasRole("ADMIN")
                         // 其他接口需要认证
@@ -6,12 +6,12 @@ import icu.nyat.dreamjournalsystem.dto.response.ApiResponse;
 import icu.nyat.dreamjournalsystem.dto.response.LoginResponse;
 import icu.nyat.dreamjournalsystem.entity.User;
 import icu.nyat.dreamjournalsystem.mapper.UserMapper;
+import icu.nyat.dreamjournalsystem.security.CurrentUserId;
 import icu.nyat.dreamjournalsystem.service.AuthService;
+import icu.nyat.dreamjournalsystem.util.IpUtils;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -34,19 +34,35 @@ public class AuthController {
     @PostMapping("/register")
     public ApiResponse<LoginResponse> register(@Valid @RequestBody RegisterRequest request,
                                                 HttpServletRequest httpRequest) {
-        String ipAddress = getClientIp(httpRequest);
-        LoginResponse response = authService.register(request, ipAddress);
+        String ipAddress = IpUtils.getClientIp(httpRequest);
+        LoginResponse response = authService.register(request, ipAddress, httpRequest.getHeader("User-Agent"));
         return ApiResponse.created(response);
     }
 
+    /**
+     * 检查用户名/邮箱是否可用（注册表单实时校验）
+     */
+    @GetMapping("/availability")
+    public ApiResponse<Map<String, Boolean>> checkAvailability(@RequestParam(required = false) String username,
+                                                               @RequestParam(required = false) String email) {
+        Map<String, Boolean> result = new HashMap<>();
+        if (username != null && !username.isBlank()) {
+            result.put("usernameAvailable", authService.isUsernameAvailable(username));
+        }
+        if (email != null && !email.isBlank()) {
+            result.put("emailAvailable", authService.isEmailAvailable(email));
+        }
+        return ApiResponse.success(result);
+    }
+
     /**
      * 用户登录
      */
     @PostMapping("/login")
     public ApiResponse<LoginResponse> login(@Valid @RequestBody LoginRequest request,
                                             HttpServletRequest httpRequest) {
-        String ipAddress = getClientIp(httpRequest);
-        LoginResponse response = authService.login(request, ipAddress);
+        String ipAddress = IpUtils.getClientIp(httpRequest);
+        LoginResponse response = authService.login(request, ipAddress, httpRequest.getHeader("User-Agent"));
         return ApiResponse.success("登录成功", response);
     }
 
@@ -54,14 +70,8 @@ public class AuthController {
      * 刷新令牌
      */
     @PostMapping("/refresh")
-    public ApiResponse<Map<String, Object>> refreshToken(@RequestBody Map<String, String> request) {
-        String refreshToken = request.get("refreshToken");
-        String newAccessToken = authService.refreshToken(refreshToken);
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("accessToken", newAccessToken);
-        response.put("expiresIn", 86400);
-        
+    public ApiResponse<LoginResponse> refreshToken(@RequestBody Map<String, String> request) {
+        LoginResponse response = authService.refreshToken(request.get("refreshToken"));
         return ApiResponse.success(response);
     }
 
@@ -79,8 +89,8 @@ public class AuthController {
      * 获取当前用户信息
      */
     @GetMapping("/me")
-    public ApiResponse<Map<String, Object>> getCurrentUser(@AuthenticationPrincipal UserDetails userDetails) {
-        User user = userMapper.findByUsername(userDetails.getUsername());
+    public ApiResponse<Map<String, Object>> getCurrentUser(@CurrentUserId Long userId) {
+        User user = userMapper.selectById(userId);
         if (user == null) {
             return ApiResponse.error(401, "用户不存在");
         }
@@ -95,25 +105,4 @@ public class AuthController {
         
         return ApiResponse.success(userInfo);
     }
-
-    /**
-     * 获取客户端IP
-     */
-    private String getClientIp(HttpServletRequest request) {
-        String ip = request.getHeader("X-Forwarded-For");
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeader("Proxy-Client-IP");
-        }
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeader("WL-Proxy-Client-IP");
-        }
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getRemoteAddr();
-        }
-        // 多个代理的情况，取第一个IP
-        if (ip != null && ip.contains(",")) {
-            ip = ip.split(",")[0].trim();
-        }
-        return ip;
-    }
 }
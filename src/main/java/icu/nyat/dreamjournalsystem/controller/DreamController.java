@@ -1,24 +1,49 @@
 package icu.nyat.dreamjournalsystem.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import icu.nyat.dreamjournalsystem.audit.AuditLog;
+import icu.nyat.dreamjournalsystem.dto.request.DreamPatchRequest;
 import icu.nyat.dreamjournalsystem.dto.request.DreamRequest;
+import icu.nyat.dreamjournalsystem.dto.response.AISummaryTicket;
 import icu.nyat.dreamjournalsystem.dto.response.ApiResponse;
+import icu.nyat.dreamjournalsystem.dto.response.CursorPage;
+import icu.nyat.dreamjournalsystem.dto.response.DreamDetailResponse;
+import icu.nyat.dreamjournalsystem.dto.response.DreamImportResult;
+import icu.nyat.dreamjournalsystem.dto.response.DreamListItem;
+import icu.nyat.dreamjournalsystem.dto.response.DreamSearchResult;
+import icu.nyat.dreamjournalsystem.dto.response.DreamStatistics;
 import icu.nyat.dreamjournalsystem.entity.AISummary;
 import icu.nyat.dreamjournalsystem.entity.Dream;
-import icu.nyat.dreamjournalsystem.entity.User;
-import icu.nyat.dreamjournalsystem.service.AISummaryService;
+import icu.nyat.dreamjournalsystem.exception.BusinessException;
+import icu.nyat.dreamjournalsystem.exception.ErrorCode;
+import icu.nyat.dreamjournalsystem.security.CurrentUserId;
 import icu.nyat.dreamjournalsystem.service.DreamService;
+import icu.nyat.dreamjournalsystem.service.DreamStatisticsService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * 梦境控制器
@@ -29,36 +54,96 @@ import java.util.Map;
 public class DreamController {
 
     private final DreamService dreamService;
-    private final AISummaryService aiSummaryService;
-    private final icu.nyat.dreamjournalsystem.mapper.UserMapper userMapper;
+    private final DreamStatisticsService dreamStatisticsService;
 
     /**
      * 创建梦境记录
      */
     @PostMapping
     public ApiResponse<Dream> createDream(@Valid @RequestBody DreamRequest request,
-                                          @AuthenticationPrincipal UserDetails userDetails) {
-        Long userId = getUserId(userDetails);
+                                          @CurrentUserId Long userId) {
         Dream dream = dreamService.createDream(userId, request);
         return ApiResponse.created(dream);
     }
 
+    /**
+     * 批量导入梦境
+     * 请求体为 NDJSON（每行一个梦境 JSON）或带表头的 CSV，未指定 format 时按 Content-Type 判断
+     */
+    @PostMapping("/import")
+    public ApiResponse<DreamImportResult> importDreams(
+            @RequestParam(value = "format", required = false) String format,
+            @RequestParam(value = "generateAISummary", defaultValue = "false") boolean generateAISummary,
+            HttpServletRequest request,
+            @CurrentUserId Long userId) throws IOException {
+        DreamService.ImportFormat importFormat = resolveImportFormat(format, request.getContentType());
+        try (Reader reader = new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8)) {
+            return ApiResponse.success(dreamService.importDreams(userId, reader, importFormat, generateAISummary));
+        }
+    }
+
+    /**
+     * 导出全部梦境及AI总结
+     * 响应以流的形式逐条写出；客户端支持 gzip 时压缩传输
+     * 写出在异步线程上进行，取不到请求信息，因此审计记在返回响应体之前的请求线程上
+     */
+    @GetMapping("/export")
+    @AuditLog(action = "DREAM_EXPORT", targetType = "DREAM", userId = "#userId")
+    public ResponseEntity<StreamingResponseBody> exportDreams(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @CurrentUserId Long userId) {
+        DreamService.ExportFormat exportFormat = resolveExportFormat(format);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+            dreamService.exportDreams(userId, exportFormat, target);
+            if (target instanceof GZIPOutputStream gzipOut) {
+                gzipOut.finish();
+            }
+            target.flush();
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("dreams-" + LocalDate.now() + exportFormat.getExtension())
+                        .build()
+                        .toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .cacheControl(CacheControl.noStore());
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
     /**
      * 获取梦境列表
+     * 默认为页码分页；mode=cursor 或携带 after 时使用游标分页（响应为 CursorPage）
      */
     @GetMapping
-    public ApiResponse<Map<String, Object>> getDreams(
+    public ApiResponse<?> getDreams(
             @RequestParam(value = "page", defaultValue = "1") int page,
             @RequestParam(value = "size", defaultValue = "10") int size,
+            @RequestParam(value = "mode", required = false) String mode,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "withTotal", defaultValue = "false") boolean withTotal,
             @RequestParam(value = "keyword", required = false) String keyword,
             @RequestParam(value = "startDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(value = "endDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             @RequestParam(value = "dreamType", required = false) Dream.DreamType dreamType,
             @RequestParam(value = "isFavorite", required = false) Boolean isFavorite,
-            @AuthenticationPrincipal UserDetails userDetails) {
-        
-        Long userId = getUserId(userDetails);
-        IPage<Dream> dreamPage = dreamService.getDreamsByUserId(userId, page, size, 
+            @CurrentUserId Long userId) {
+
+        if ("cursor".equalsIgnoreCase(mode) || after != null) {
+            CursorPage<DreamListItem> cursorPage = dreamService.getDreamsByCursor(userId, after, Math.min(Math.max(size, 1), 50),
+                    withTotal, keyword, startDate, endDate, dreamType, isFavorite);
+            return ApiResponse.success(cursorPage);
+        }
+
+        IPage<DreamListItem> dreamPage = dreamService.getDreamsByUserId(userId, page, size, 
                 keyword, startDate, endDate, dreamType, isFavorite);
         
         Map<String, Object> response = new HashMap<>();
@@ -73,47 +158,80 @@ public class DreamController {
         return ApiResponse.success(response);
     }
 
+    /**
+     * 全文搜索梦境（按相关度排序）
+     */
+    @GetMapping("/search")
+    public ApiResponse<Map<String, Object>> searchDreams(
+            @RequestParam("keyword") String keyword,
+            @RequestParam(value = "page", defaultValue = "1") int page,
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            @CurrentUserId Long userId) {
+        if (!StringUtils.hasText(keyword) || keyword.length() > 100) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "关键词长度必须在1-100个字符之间");
+        }
+
+        IPage<DreamSearchResult> resultPage = dreamService.searchDreams(userId, keyword,
+                Math.max(page, 1), Math.min(Math.max(size, 1), 50));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("content", resultPage.getRecords());
+        response.put("totalElements", resultPage.getTotal());
+        response.put("totalPages", resultPage.getPages());
+        response.put("currentPage", resultPage.getCurrent());
+        response.put("pageSize", resultPage.getSize());
+        response.put("hasNext", resultPage.getCurrent() < resultPage.getPages());
+        response.put("hasPrevious", resultPage.getCurrent() > 1);
+
+        return ApiResponse.success(response);
+    }
+
+    /**
+     * 即时搜索（边输入边搜索，只返回 id、标题和日期）
+     */
+    @GetMapping("/search/instant")
+    public ApiResponse<List<DreamSearchResult>> instantSearch(
+            @RequestParam("keyword") String keyword,
+            @RequestParam(value = "limit", defaultValue = "10") int limit,
+            @CurrentUserId Long userId) {
+        if (!StringUtils.hasText(keyword) || keyword.length() > 100) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "关键词长度必须在1-100个字符之间");
+        }
+        return ApiResponse.success(dreamService.instantSearch(userId, keyword, Math.min(Math.max(limit, 1), 50)));
+    }
+
     /**
      * 获取收藏的梦境列表
      */
     @GetMapping("/favorites")
-    public ApiResponse<List<Dream>> getFavorites(@AuthenticationPrincipal UserDetails userDetails) {
-        Long userId = getUserId(userDetails);
-        List<Dream> favorites = dreamService.getFavoritesByUserId(userId);
+    public ApiResponse<List<DreamListItem>> getFavorites(@CurrentUserId Long userId) {
+        List<DreamListItem> favorites = dreamService.getFavoritesByUserId(userId);
         return ApiResponse.success(favorites);
     }
 
     /**
-     * 获取梦境详情
+     * 获取梦境统计
+     */
+    @GetMapping("/statistics")
+    public ApiResponse<DreamStatistics> getStatistics(
+            @RequestParam(value = "startDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(value = "endDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @CurrentUserId Long userId) {
+        return ApiResponse.success(dreamStatisticsService.getStatistics(userId, startDate, endDate));
+    }
+
+    /**
+     * 获取梦境详情（支持 ETag 条件请求）
      */
     @GetMapping("/{id}")
-    public ApiResponse<Map<String, Object>> getDream(@PathVariable("id") Long id,
-                                                     @AuthenticationPrincipal UserDetails userDetails) {
-        Long userId = getUserId(userDetails);
-        Dream dream = dreamService.getDreamById(id, userId);
-        AISummary aiSummary = aiSummaryService.getSummaryByDreamId(id);
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("id", dream.getId());
-        response.put("userId", dream.getUserId());
-        response.put("title", dream.getTitle());
-        response.put("content", dream.getContent());
-        response.put("dreamDate", dream.getDreamDate());
-        response.put("sleepStartTime", dream.getSleepStartTime());
-        response.put("sleepEndTime", dream.getSleepEndTime());
-        response.put("sleepQuality", dream.getSleepQuality());
-        response.put("moodBeforeSleep", dream.getMoodBeforeSleep());
-        response.put("moodAfterWake", dream.getMoodAfterWake());
-        response.put("dreamType", dream.getDreamType());
-        response.put("vividness", dream.getVividness());
-        response.put("isFavorite", dream.getIsFavorite());
-        response.put("isPrivate", dream.getIsPrivate());
-        response.put("tags", dream.getTags());
-        response.put("aiSummary", aiSummary);
-        response.put("createdAt", dream.getCreatedAt());
-        response.put("updatedAt", dream.getUpdatedAt());
-        
-        return ApiResponse.success(response);
+    public ResponseEntity<ApiResponse<DreamDetailResponse>> getDream(@PathVariable("id") Long id,
+                                                                     @CurrentUserId Long userId) {
+        DreamDetailResponse detail = dreamService.getDreamDetail(id, userId);
+        // If-None-Match 命中时由 Spring 直接返回 304，不序列化响应体
+        return ResponseEntity.ok()
+                .eTag(detail.entityTag())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(ApiResponse.success(detail));
     }
 
     /**
@@ -122,19 +240,32 @@ public class DreamController {
     @PutMapping("/{id}")
     public ApiResponse<Dream> updateDream(@PathVariable("id") Long id,
                                           @Valid @RequestBody DreamRequest request,
-                                          @AuthenticationPrincipal UserDetails userDetails) {
-        Long userId = getUserId(userDetails);
+                                          @CurrentUserId Long userId) {
         Dream dream = dreamService.updateDream(id, userId, request);
         return ApiResponse.success("更新成功", dream);
     }
 
+    /**
+     * 部分更新梦境记录（只更新请求体中出现的字段）
+     */
+    @PatchMapping("/{id}")
+    public ApiResponse<Map<String, Object>> patchDream(@PathVariable("id") Long id,
+                                                       @Valid @RequestBody DreamPatchRequest request,
+                                                       @CurrentUserId Long userId) {
+        Set<String> updatedFields = dreamService.patchDream(id, userId, request);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("id", id);
+        response.put("updatedFields", updatedFields);
+        return ApiResponse.success("更新成功", response);
+    }
+
     /**
      * 删除梦境记录
      */
     @DeleteMapping("/{id}")
     public ApiResponse<Void> deleteDream(@PathVariable("id") Long id,
-                                         @AuthenticationPrincipal UserDetails userDetails) {
-        Long userId = getUserId(userDetails);
+                                         @CurrentUserId Long userId) {
         dreamService.deleteDream(id, userId);
         return ApiResponse.success("删除成功", null);
     }
@@ -144,8 +275,7 @@ public class DreamController {
      */
     @PutMapping("/{id}/favorite")
     public ApiResponse<Map<String, Boolean>> toggleFavorite(@PathVariable("id") Long id,
-                                                            @AuthenticationPrincipal UserDetails userDetails) {
-        Long userId = getUserId(userDetails);
+                                                            @CurrentUserId Long userId) {
         boolean isFavorite = dreamService.toggleFavorite(id, userId);
         
         Map<String, Boolean> response = new HashMap<>();
@@ -156,25 +286,55 @@ public class DreamController {
 
     /**
      * 重新生成AI总结
+     * 输入未变化时直接复用已有结果，force=true 时忽略结果缓存重新调用模型
      */
     @PostMapping("/{id}/ai-summary/regenerate")
-    public ApiResponse<Map<String, Object>> regenerateAISummary(@PathVariable("id") Long id,
-                                                                @AuthenticationPrincipal UserDetails userDetails) {
-        Long userId = getUserId(userDetails);
-        dreamService.regenerateAISummary(id, userId);
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("status", "PENDING");
-        response.put("estimatedTime", 10);
-        
-        return ApiResponse.success("AI总结生成中", response);
+    public ApiResponse<AISummaryTicket> regenerateAISummary(@PathVariable("id") Long id,
+                                                            @RequestParam(value = "force", defaultValue = "false") boolean force,
+                                                            @CurrentUserId Long userId) {
+        AISummaryTicket ticket = dreamService.regenerateAISummary(id, userId, force);
+        String message = switch (ticket.getStatus()) {
+            case COMPLETED -> "AI总结已生成";
+            case DEFERRED -> "AI服务繁忙，稍后自动重试";
+            default -> "AI总结生成中";
+        };
+        return ApiResponse.success(message, ticket);
     }
 
     /**
-     * 获取用户ID
+     * 流式生成AI总结（Server-Sent Events）
+     * 事件：delta（文本字段增量）、field（结构化字段）、done（保存后的总结）、error（失败）；
+     * 已有任务在排队或执行中时只返回一个 status 事件，客户端改为轮询；结果缓存命中时直接返回 done 事件
      */
-    private Long getUserId(UserDetails userDetails) {
-        User user = userMapper.findByUsername(userDetails.getUsername());
-        return user.getId();
+    @GetMapping("/{id}/ai-summary/stream")
+    public ResponseEntity<SseEmitter> streamAISummary(@PathVariable("id") Long id,
+                                                      @RequestParam(value = "force", defaultValue = "false") boolean force,
+                                                      @CurrentUserId Long userId) {
+        return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no")
+                .cacheControl(CacheControl.noStore())
+                .body(dreamService.streamAISummary(id, userId, force));
+    }
+
+    private static DreamService.ExportFormat resolveExportFormat(String format) {
+        return switch (format.toLowerCase()) {
+            case "ndjson", "jsonl" -> DreamService.ExportFormat.NDJSON;
+            case "csv" -> DreamService.ExportFormat.CSV;
+            case "json" -> DreamService.ExportFormat.JSON;
+            default -> throw new BusinessException(ErrorCode.FILE_FORMAT_ERROR, "不支持的导出格式: " + format);
+        };
+    }
+
+    private static DreamService.ImportFormat resolveImportFormat(String format, String contentType) {
+        if (!StringUtils.hasText(format)) {
+            return contentType != null && contentType.toLowerCase().contains("csv")
+                    ? DreamService.ImportFormat.CSV
+                    : DreamService.ImportFormat.NDJSON;
+        }
+        return switch (format.toLowerCase()) {
+            case "csv" -> DreamService.ImportFormat.CSV;
+            case "ndjson", "jsonl" -> DreamService.ImportFormat.NDJSON;
+            default -> throw new BusinessException(ErrorCode.FILE_FORMAT_ERROR, "不支持的导入格式: " + format);
+        };
     }
 }
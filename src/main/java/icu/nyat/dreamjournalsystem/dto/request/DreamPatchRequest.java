@@ -0,0 +1,127 @@
+package icu.nyat.dreamjournalsystem.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import icu.nyat.dreamjournalsystem.entity.Dream;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 部分更新梦境请求DTO
+ * 只更新请求体中出现的字段：setter 在反序列化时记录字段名，显式的 null 会清空可为空的字段
+ */
+@Getter
+public class DreamPatchRequest {
+
+    @Size(max = 200, message = "梦境标题不能超过200个字符")
+    private String title;
+
+    @Size(min = 10, message = "梦境内容至少需要10个字符")
+    private String content;
+
+    private LocalDate dreamDate;
+
+    private LocalTime sleepStartTime;
+
+    private LocalTime sleepEndTime;
+
+    private Dream.SleepQuality sleepQuality;
+
+    private Dream.Mood moodBeforeSleep;
+
+    private Dream.Mood moodAfterWake;
+
+    private Dream.DreamType dreamType;
+
+    @Min(value = 1, message = "清晰度最小为1")
+    @Max(value = 10, message = "清晰度最大为10")
+    private Integer vividness;
+
+    private Boolean isFavorite;
+
+    private Boolean isPrivate;
+
+    private List<String> tags;
+
+    /**
+     * 请求体中出现过的字段名
+     */
+    @JsonIgnore
+    private final Set<String> presentFields = new LinkedHashSet<>();
+
+    public boolean has(String field) {
+        return presentFields.contains(field);
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+        presentFields.add("title");
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+        presentFields.add("content");
+    }
+
+    public void setDreamDate(LocalDate dreamDate) {
+        this.dreamDate = dreamDate;
+        presentFields.add("dreamDate");
+    }
+
+    public void setSleepStartTime(LocalTime sleepStartTime) {
+        this.sleepStartTime = sleepStartTime;
+        presentFields.add("sleepStartTime");
+    }
+
+    public void setSleepEndTime(LocalTime sleepEndTime) {
+        this.sleepEndTime = sleepEndTime;
+        presentFields.add("sleepEndTime");
+    }
+
+    public void setSleepQuality(Dream.SleepQuality sleepQuality) {
+        this.sleepQuality = sleepQuality;
+        presentFields.add("sleepQuality");
+    }
+
+    public void setMoodBeforeSleep(Dream.Mood moodBeforeSleep) {
+        this.moodBeforeSleep = moodBeforeSleep;
+        presentFields.add("moodBeforeSleep");
+    }
+
+    public void setMoodAfterWake(Dream.Mood moodAfterWake) {
+        this.moodAfterWake = moodAfterWake;
+        presentFields.add("moodAfterWake");
+    }
+
+    public void setDreamType(Dream.DreamType dreamType) {
+        this.dreamType = dreamType;
+        presentFields.add("dreamType");
+    }
+
+    public void setVividness(Integer vividness) {
+        this.vividness = vividness;
+        presentFields.add("vividness");
+    }
+
+    public void setIsFavorite(Boolean isFavorite) {
+        this.isFavorite = isFavorite;
+        presentFields.add("isFavorite");
+    }
+
+    public void setIsPrivate(Boolean isPrivate) {
+        this.isPrivate = isPrivate;
+        presentFields.add("isPrivate");
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+        presentFields.add("tags");
+    }
+}
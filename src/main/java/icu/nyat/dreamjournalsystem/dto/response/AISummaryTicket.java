@@ -0,0 +1,29 @@
+package icu.nyat.dreamjournalsystem.dto.response;
+
+import icu.nyat.dreamjournalsystem.entity.AISummary;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * AI总结排队情况DTO
+ */
+@Data
+@AllArgsConstructor
+public class AISummaryTicket {
+
+    /**
+     * PENDING：已写入任务队列或正在生成；DEFERRED：上次尝试暂时失败，等待退避后重试；
+     * COMPLETED：输入与已有结果相同，已直接以缓存结果完成
+     */
+    private AISummary.SummaryStatus status;
+
+    /**
+     * 队列位置：0 表示正在生成，n 表示前面还有 n-1 个任务
+     */
+    private int queuePosition;
+
+    /**
+     * 预计完成所需秒数（按近期平均耗时估算）
+     */
+    private long estimatedTime;
+}
@@ -0,0 +1,34 @@
+package icu.nyat.dreamjournalsystem.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 游标分页响应DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> content;
+
+    private Integer pageSize;
+
+    private Boolean hasNext;
+
+    /**
+     * 下一页游标（作为 after 参数传回），没有下一页时为 null
+     */
+    private String nextCursor;
+
+    /**
+     * 总条数，仅在请求 withTotal=true 时计算
+     */
+    private Long totalElements;
+}
@@ -0,0 +1,68 @@
+package icu.nyat.dreamjournalsystem.dto.response;
+
+import icu.nyat.dreamjournalsystem.entity.AISummary;
+import icu.nyat.dreamjournalsystem.entity.Dream;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * 梦境详情响应DTO（含AI总结），由 DreamMapper#selectDetailById 一次查询得到
+ */
+@Data
+public class DreamDetailResponse {
+
+    private Long id;
+
+    private Long userId;
+
+    private String title;
+
+    private String content;
+
+    private LocalDate dreamDate;
+
+    private LocalTime sleepStartTime;
+
+    private LocalTime sleepEndTime;
+
+    private Dream.SleepQuality sleepQuality;
+
+    private Dream.Mood moodBeforeSleep;
+
+    private Dream.Mood moodAfterWake;
+
+    private Dream.DreamType dreamType;
+
+    private Integer vividness;
+
+    private Boolean isFavorite;
+
+    private Boolean isPrivate;
+
+    private List<String> tags;
+
+    private AISummary aiSummary;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    /**
+     * 强 ETag：由梦境与AI总结的 updated_at（毫秒精度）生成，任一方修改后即变化
+     */
+    public String entityTag() {
+        long summaryVersion = aiSummary != null ? toEpochMilli(aiSummary.getUpdatedAt()) : 0;
+        return "\"" + Long.toHexString(id) + "-" + Long.toHexString(toEpochMilli(updatedAt))
+                + "-" + Long.toHexString(summaryVersion) + "\"";
+    }
+
+    private static long toEpochMilli(LocalDateTime time) {
+        // 只用于比较是否变化，按 UTC 换算即可
+        return time != null ? time.toInstant(ZoneOffset.UTC).toEpochMilli() : 0;
+    }
+}
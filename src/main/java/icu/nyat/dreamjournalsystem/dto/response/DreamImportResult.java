@@ -0,0 +1,46 @@
+package icu.nyat.dreamjournalsystem.dto.response;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 梦境导入结果DTO
+ */
+@Data
+public class DreamImportResult {
+
+    /**
+     * 读取到的记录数（不含空行与表头）
+     */
+    private int total;
+
+    private int imported;
+
+    private int failed;
+
+    /**
+     * 已排队生成AI总结的梦境数
+     */
+    private int aiSummaryQueued;
+
+    /**
+     * 逐行错误（最多保留前若干条）
+     */
+    private List<LineError> errors = new ArrayList<>();
+
+    /**
+     * 错误是否超过保留上限而被截断
+     */
+    private boolean errorsTruncated;
+
+    /**
+     * 单行错误
+     *
+     * @param line    行号（从 1 开始，CSV 为记录起始行）
+     * @param message 错误原因
+     */
+    public record LineError(int line, String message) {
+    }
+}
@@ -0,0 +1,43 @@
+package icu.nyat.dreamjournalsystem.dto.response;
+
+import icu.nyat.dreamjournalsystem.entity.Dream;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 梦境列表项DTO
+ * 只包含列表卡片所需字段，正文以 content_preview 列代替，完整内容通过详情接口获取
+ */
+@Data
+public class DreamListItem {
+
+    private Long id;
+
+    private String title;
+
+    /**
+     * 正文前 200 个字符
+     */
+    private String contentPreview;
+
+    private LocalDate dreamDate;
+
+    private Dream.DreamType dreamType;
+
+    private Dream.Mood moodBeforeSleep;
+
+    private Dream.Mood moodAfterWake;
+
+    private Dream.SleepQuality sleepQuality;
+
+    private Integer vividness;
+
+    private Boolean isFavorite;
+
+    private List<String> tags;
+
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,46 @@
+package icu.nyat.dreamjournalsystem.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import icu.nyat.dreamjournalsystem.entity.Dream;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 梦境搜索结果DTO
+ */
+@Data
+public class DreamSearchResult {
+
+    private Long id;
+
+    private String title;
+
+    /**
+     * 命中位置附近的正文片段
+     */
+    private String snippet;
+
+    private LocalDate dreamDate;
+
+    private Dream.DreamType dreamType;
+
+    private Boolean isFavorite;
+
+    private List<String> tags;
+
+    /**
+     * 相关度得分（LIKE 降级检索时为 null）
+     */
+    private Double score;
+
+    private LocalDateTime createdAt;
+
+    /**
+     * 正文，仅用于提取片段，不返回给前端
+     */
+    @JsonIgnore
+    private String content;
+}
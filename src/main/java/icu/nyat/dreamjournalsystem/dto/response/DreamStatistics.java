@@ -0,0 +1,64 @@
+package icu.nyat.dreamjournalsystem.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 梦境统计响应DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DreamStatistics {
+
+    private Long totalDreams;
+
+    private Long totalFavorites;
+
+    private Map<String, Long> dreamsByType;
+
+    /**
+     * 醒后情绪分布
+     */
+    private Map<String, Long> dreamsByMood;
+
+    /**
+     * 睡前情绪分布
+     */
+    private Map<String, Long> dreamsByMoodBeforeSleep;
+
+    private Map<String, Long> dreamsBySleepQuality;
+
+    /**
+     * 每月梦境数量（键为 yyyy-MM，按时间升序）
+     */
+    private Map<String, Long> dreamsByMonth;
+
+    /**
+     * 平均睡眠质量（EXCELLENT=5 … TERRIBLE=1），无数据时为 null
+     */
+    private Double averageSleepQuality;
+
+    /**
+     * 平均清晰度（1-10），无数据时为 null
+     */
+    private Double averageVividness;
+
+    /**
+     * 查询范围内每天的梦境数量（含 0）
+     */
+    private List<DayCount> dreamFrequency;
+
+    /**
+     * 单日梦境数量
+     */
+    public record DayCount(LocalDate date, long count) {
+    }
+}
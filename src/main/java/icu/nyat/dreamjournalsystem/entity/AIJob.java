@@ -0,0 +1,65 @@
+package icu.nyat.dreamjournalsystem.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * AI总结任务实体类（持久化任务队列，每个梦境一行）
+ */
+@Data
+@TableName("ai_jobs")
+public class AIJob {
+
+    /**
+     * 交互请求（新建、重新生成）优先于批量导入
+     */
+    public static final int PRIORITY_INTERACTIVE = 0;
+    public static final int PRIORITY_BULK = 1;
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private Long dreamId;
+
+    private JobStatus status;
+
+    private Integer priority;
+
+    /**
+     * 已领取次数（含当前这次）
+     */
+    private Integer attempts;
+
+    /**
+     * 最早可领取时间（重试退避）
+     */
+    private LocalDateTime availableAt;
+
+    /**
+     * 持有租约的节点
+     */
+    private String leaseOwner;
+
+    /**
+     * 租约到期时间，过期未完成的任务由清扫任务收回
+     */
+    private LocalDateTime leaseUntil;
+
+    private String lastError;
+
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updatedAt;
+
+    /**
+     * 任务状态枚举
+     * DEAD：不可重试的错误或重试次数用尽（死信），保留以便排查
+     */
+    public enum JobStatus {
+        QUEUED, RUNNING, SUCCEEDED, DEAD
+    }
+}
@@ -2,6 +2,7 @@ package icu.nyat.dreamjournalsystem.entity;
 
 import com.baomidou.mybatisplus.annotation.*;
 import com.baomidou.mybatisplus.extension.handlers.JacksonTypeHandler;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 
 import java.math.BigDecimal;
@@ -44,6 +45,18 @@ public class AISummary {
 
     private Integer generationTimeMs;
 
+    /**
+     * 生成输入（提示词、模型、温度、提示词版本）的 SHA-256 摘要，结果缓存的键
+     * 结果缓存跨用户共享，摘要相同即输入相同，不能返回给客户端
+     */
+    @JsonIgnore
+    private String contentDigest;
+
+    /**
+     * 结果是否直接取自缓存（未调用模型）
+     */
+    private Boolean cacheHit;
+
     private SummaryStatus status;
 
     private String errorMessage;
@@ -56,9 +69,10 @@ public class AISummary {
 
     /**
      * AI总结状态枚举
+     * DEFERRED：暂时失败，任务已按退避时间重新排队
      */
     public enum SummaryStatus {
-        PENDING, COMPLETED, FAILED
+        PENDING, DEFERRED, COMPLETED, FAILED
     }
 
     /**
@@ -0,0 +1,36 @@
+package icu.nyat.dreamjournalsystem.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 操作日志实体类
+ */
+@Data
+@TableName("operation_logs")
+public class OperationLog {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private Long userId;
+
+    private String action;
+
+    private String targetType;
+
+    private Long targetId;
+
+    /**
+     * 详细信息（JSON）
+     */
+    private String details;
+
+    private String ipAddress;
+
+    private String userAgent;
+
+    private LocalDateTime createdAt;
+}
@@ -38,6 +38,11 @@ public class User {
 
     private LocalDateTime lockedUntil;
 
+    /**
+     * 最近一次修改密码的时间，此前签发的旧 JWT 刷新令牌不再接受
+     */
+    private LocalDateTime passwordChangedAt;
+
     @TableField(fill = FieldFill.INSERT)
     private LocalDateTime createdAt;
 
@@ -0,0 +1,31 @@
+package icu.nyat.dreamjournalsystem.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+/**
+ * 用户梦境统计汇总实体类
+ * 每行为某用户在某一维度某一分组下的梦境数量
+ */
+@Data
+@TableName("user_dream_stats")
+public class UserDreamStat {
+
+    private Long userId;
+
+    private Dimension dimension;
+
+    /**
+     * 分组值：枚举名、yyyy-MM、yyyy-MM-dd，总计类维度为空串
+     */
+    private String bucket;
+
+    private Integer cnt;
+
+    /**
+     * 统计维度枚举
+     */
+    public enum Dimension {
+        TOTAL, FAVORITE, TYPE, MOOD_BEFORE, MOOD_AFTER, QUALITY, VIVIDNESS, MONTH, DAY
+    }
+}
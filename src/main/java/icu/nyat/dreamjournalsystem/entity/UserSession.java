@@ -0,0 +1,33 @@
+package icu.nyat.dreamjournalsystem.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户会话实体类（刷新令牌）
+ */
+@Data
+@TableName("user_sessions")
+public class UserSession {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private Long userId;
+
+    /**
+     * 刷新令牌的 SHA-256 摘要，数据库中不保存令牌明文
+     */
+    private String tokenHash;
+
+    private String deviceInfo;
+
+    private String ipAddress;
+
+    private LocalDateTime expiresAt;
+
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+}
@@ -12,6 +12,7 @@ public enum ErrorCode {
     VALIDATION_ERROR(40001, "参数验证失败"),
     FILE_FORMAT_ERROR(40002, "文件格式不支持"),
     FILE_SIZE_ERROR(40003, "文件大小超限"),
+    TOO_MANY_REQUESTS(42901, "请求过于频繁，请稍后再试"),
 
     // 认证错误 (100xx)
     USER_EXISTS(10001, "用户名已存在"),
@@ -23,6 +24,7 @@ public enum ErrorCode {
     TOKEN_INVALID(10007, "Token无效"),
     ACCESS_DENIED(10008, "权限不足"),
     USER_NOT_FOUND(10009, "用户不存在"),
+    USER_INACTIVE(10010, "账户未激活"),
 
     // 梦境错误 (200xx)
     DREAM_NOT_FOUND(20001, "梦境不存在"),
@@ -0,0 +1,139 @@
+package icu.nyat.dreamjournalsystem.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import icu.nyat.dreamjournalsystem.entity.AIJob;
+import org.apache.ibatis.annotations.*;
+
+import java.util.List;
+
+/**
+ * AI总结任务 Mapper
+ * 时间比较统一使用数据库时钟 NOW(3)，避免各节点时钟偏差影响租约判断
+ */
+@Mapper
+public interface AIJobMapper extends BaseMapper<AIJob> {
+
+    /**
+     * 入队或直接以租约形式领取（leaseOwner 非空时为 RUNNING）；重置重试次数与错误
+     */
+    @Insert("INSERT INTO ai_jobs (dream_id, status, priority, attempts, available_at, lease_owner, lease_until) " +
+            "VALUES (#{dreamId}, #{status}, #{priority}, #{attempts}, NOW(3), #{leaseOwner}, " +
+            "IF(#{leaseOwner} IS NULL, NULL, NOW(3) + INTERVAL #{leaseSeconds} SECOND)) " +
+            "ON DUPLICATE KEY UPDATE status = VALUES(status), priority = VALUES(priority), attempts = VALUES(attempts), " +
+            "available_at = VALUES(available_at), lease_owner = VALUES(lease_owner), lease_until = VALUES(lease_until), " +
+            "last_error = NULL")
+    int upsert(@Param("dreamId") Long dreamId,
+               @Param("status") AIJob.JobStatus status,
+               @Param("priority") int priority,
+               @Param("attempts") int attempts,
+               @Param("leaseOwner") String leaseOwner,
+               @Param("leaseSeconds") long leaseSeconds);
+
+    /**
+     * 批量入队；正在执行的任务保持不变
+     */
+    @Insert("<script>" +
+            "INSERT INTO ai_jobs (dream_id, status, priority, attempts, available_at) VALUES " +
+            "<foreach collection='dreamIds' item='dreamId' separator=','>" +
+            "(#{dreamId}, 'QUEUED', #{priority}, 0, NOW(3))" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE status = IF(status = 'RUNNING', status, 'QUEUED'), attempts = IF(status = 'RUNNING', attempts, 0), " +
+            "available_at = IF(status = 'RUNNING', available_at, NOW(3)), last_error = NULL" +
+            "</script>")
+    int enqueueAll(@Param("dreamIds") List<Long> dreamIds, @Param("priority") int priority);
+
+    /**
+     * 任务是否在排队或租约未过期的执行中
+     */
+    @Select("SELECT COUNT(*) FROM ai_jobs WHERE dream_id = #{dreamId} " +
+            "AND (status = 'QUEUED' OR (status = 'RUNNING' AND lease_until > NOW(3)))")
+    int countActive(@Param("dreamId") Long dreamId);
+
+    /**
+     * 锁定可领取的任务，已被其他节点锁定的行直接跳过
+     */
+    @Select("SELECT id, dream_id, priority, attempts FROM ai_jobs " +
+            "WHERE status = 'QUEUED' AND available_at <= NOW(3) " +
+            "ORDER BY priority, available_at, id LIMIT #{limit} FOR UPDATE SKIP LOCKED")
+    List<AIJob> selectClaimable(@Param("limit") int limit);
+
+    @Update("<script>" +
+            "UPDATE ai_jobs SET status = 'RUNNING', attempts = attempts + 1, lease_owner = #{owner}, " +
+            "lease_until = NOW(3) + INTERVAL #{leaseSeconds} SECOND WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int markRunning(@Param("ids") List<Long> ids, @Param("owner") String owner, @Param("leaseSeconds") long leaseSeconds);
+
+    /**
+     * 以下三个方法只在仍持有该次租约时生效（owner + attempts 作为栅栏）
+     */
+    @Update("UPDATE ai_jobs SET status = 'SUCCEEDED', lease_owner = NULL, lease_until = NULL, last_error = NULL " +
+            "WHERE dream_id = #{dreamId} AND status = 'RUNNING' AND lease_owner = #{owner} AND attempts = #{attempt}")
+    int complete(@Param("dreamId") Long dreamId, @Param("owner") String owner, @Param("attempt") int attempt);
+
+    @Update("UPDATE ai_jobs SET status = 'QUEUED', available_at = NOW(3) + INTERVAL #{delaySeconds} SECOND, " +
+            "lease_owner = NULL, lease_until = NULL, last_error = #{error} " +
+            "WHERE dream_id = #{dreamId} AND status = 'RUNNING' AND lease_owner = #{owner} AND attempts = #{attempt}")
+    int retry(@Param("dreamId") Long dreamId, @Param("owner") String owner, @Param("attempt") int attempt,
+              @Param("delaySeconds") long delaySeconds, @Param("error") String error);
+
+    @Update("UPDATE ai_jobs SET status = 'DEAD', lease_owner = NULL, lease_until = NULL, last_error = #{error} " +
+            "WHERE dream_id = #{dreamId} AND status = 'RUNNING' AND lease_owner = #{owner} AND attempts = #{attempt}")
+    int bury(@Param("dreamId") Long dreamId, @Param("owner") String owner, @Param("attempt") int attempt,
+             @Param("error") String error);
+
+    /**
+     * 归还已领取但尚未开始执行的任务（不计入重试次数）
+     */
+    @Update("<script>" +
+            "UPDATE ai_jobs SET status = 'QUEUED', attempts = attempts - 1, lease_owner = NULL, lease_until = NULL " +
+            "WHERE status = 'RUNNING' AND lease_owner = #{owner} AND dream_id IN " +
+            "<foreach collection='dreamIds' item='dreamId' open='(' separator=',' close=')'>#{dreamId}</foreach>" +
+            "</script>")
+    int release(@Param("dreamIds") List<Long> dreamIds, @Param("owner") String owner);
+
+    /**
+     * 排在该任务之前（含自身）的排队任务数；任务不在排队中时为 0
+     */
+    @Select("SELECT COUNT(*) FROM ai_jobs j " +
+            "JOIN ai_jobs m ON m.dream_id = #{dreamId} AND m.status = 'QUEUED' " +
+            "WHERE j.status = 'QUEUED' AND (j.priority < m.priority OR (j.priority = m.priority " +
+            "AND (j.available_at < m.available_at OR (j.available_at = m.available_at AND j.id <= m.id))))")
+    int countAhead(@Param("dreamId") Long dreamId);
+
+    /**
+     * 收回租约已过期的任务：次数用尽的进入死信，其余立即重新排队
+     */
+    @Update("UPDATE ai_jobs SET status = IF(attempts >= #{maxAttempts}, 'DEAD', 'QUEUED'), available_at = NOW(3), " +
+            "lease_owner = NULL, lease_until = NULL, last_error = '处理超时（租约过期）' " +
+            "WHERE status = 'RUNNING' AND lease_until < NOW(3)")
+    int reclaimExpired(@Param("maxAttempts") int maxAttempts);
+
+    /**
+     * 任务已进入死信但总结仍显示生成中的梦境
+     */
+    @Select("SELECT s.dream_id FROM ai_summaries s JOIN ai_jobs j ON j.dream_id = s.dream_id " +
+            "WHERE j.status = 'DEAD' AND s.status IN ('PENDING', 'DEFERRED') LIMIT #{limit}")
+    List<Long> selectDeadWithOpenSummary(@Param("limit") int limit);
+
+    @Update("<script>" +
+            "UPDATE ai_summaries s JOIN ai_jobs j ON j.dream_id = s.dream_id " +
+            "SET s.status = 'FAILED', s.error_message = j.last_error " +
+            "WHERE j.status = 'DEAD' AND s.status IN ('PENDING', 'DEFERRED') AND s.dream_id IN " +
+            "<foreach collection='dreamIds' item='dreamId' open='(' separator=',' close=')'>#{dreamId}</foreach>" +
+            "</script>")
+    int failSummaries(@Param("dreamIds") List<Long> dreamIds);
+
+    /**
+     * 为长时间停留在 PENDING/DEFERRED 却没有有效任务的总结重新入队
+     * （升级前遗留的记录，或任务行被人工清理）
+     */
+    @Insert("INSERT INTO ai_jobs (dream_id, status, priority, attempts, available_at) " +
+            "SELECT s.dream_id, 'QUEUED', " + AIJob.PRIORITY_BULK + ", 0, NOW(3) FROM ai_summaries s " +
+            "LEFT JOIN ai_jobs j ON j.dream_id = s.dream_id " +
+            "WHERE s.status IN ('PENDING', 'DEFERRED') AND s.updated_at < NOW(3) - INTERVAL #{staleSeconds} SECOND " +
+            "AND (j.id IS NULL OR j.status = 'SUCCEEDED') " +
+            "ON DUPLICATE KEY UPDATE ai_jobs.status = 'QUEUED', ai_jobs.attempts = 0, ai_jobs.available_at = NOW(3), " +
+            "ai_jobs.lease_owner = NULL, ai_jobs.lease_until = NULL, ai_jobs.last_error = NULL")
+    int requeueOrphans(@Param("staleSeconds") long staleSeconds);
+}
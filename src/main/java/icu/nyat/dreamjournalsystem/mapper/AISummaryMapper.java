@@ -4,6 +4,8 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import icu.nyat.dreamjournalsystem.entity.AISummary;
 import org.apache.ibatis.annotations.*;
 
+import java.util.List;
+
 /**
  * AI总结 Mapper
  */
@@ -28,6 +30,8 @@ public interface AISummaryMapper extends BaseMapper<AISummary> {
             @Result(column = "confidence_score", property = "confidenceScore"),
             @Result(column = "tokens_used", property = "tokensUsed"),
             @Result(column = "generation_time_ms", property = "generationTimeMs"),
+            @Result(column = "content_digest", property = "contentDigest"),
+            @Result(column = "cache_hit", property = "cacheHit"),
             @Result(column = "status", property = "status"),
             @Result(column = "error_message", property = "errorMessage"),
             @Result(column = "created_at", property = "createdAt"),
@@ -56,6 +60,8 @@ public interface AISummaryMapper extends BaseMapper<AISummary> {
             "confidence_score = #{confidenceScore}, " +
             "tokens_used = #{tokensUsed}, " +
             "generation_time_ms = #{generationTimeMs}, " +
+            "content_digest = #{contentDigest}, " +
+            "cache_hit = #{cacheHit}, " +
             "status = #{status}, " +
             "error_message = #{errorMessage}, " +
             "updated_at = #{updatedAt} " +
@@ -68,4 +74,29 @@ public interface AISummaryMapper extends BaseMapper<AISummary> {
     @Select("SELECT * FROM ai_summaries WHERE dream_id = #{dreamId} FOR UPDATE")
     @ResultMap("aiSummaryResultMap")
     AISummary findByDreamIdForUpdate(@Param("dreamId") Long dreamId);
+
+    /**
+     * 批量重置为 PENDING（导入后批量生成，任务另行写入 ai_jobs）
+     */
+    @Insert("<script>" +
+            "INSERT INTO ai_summaries (dream_id, ai_model, prompt_version, status) VALUES " +
+            "<foreach collection='dreamIds' item='dreamId' separator=','>" +
+            "(#{dreamId}, #{aiModel}, #{promptVersion}, 'PENDING')" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE status = 'PENDING', error_message = NULL" +
+            "</script>")
+    int upsertPending(@Param("dreamIds") List<Long> dreamIds,
+                      @Param("aiModel") String aiModel,
+                      @Param("promptVersion") String promptVersion);
+
+    /**
+     * 按输入摘要查找已完成的总结（结果缓存的数据库兜底）
+     */
+    @Select("SELECT * FROM ai_summaries WHERE content_digest = #{digest} AND status = 'COMPLETED' " +
+            "ORDER BY id DESC LIMIT 1")
+    @ResultMap("aiSummaryResultMap")
+    AISummary findCompletedByDigest(@Param("digest") String digest);
+
+    @Select("SELECT status FROM ai_summaries WHERE dream_id = #{dreamId}")
+    AISummary.SummaryStatus selectStatus(@Param("dreamId") Long dreamId);
 }
@@ -1,14 +1,32 @@
 package icu.nyat.dreamjournalsystem.mapper;
 
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
+import com.baomidou.mybatisplus.extension.handlers.JacksonTypeHandler;
+import icu.nyat.dreamjournalsystem.dto.response.DreamDetailResponse;
+import icu.nyat.dreamjournalsystem.dto.response.DreamListItem;
+import icu.nyat.dreamjournalsystem.dto.response.DreamSearchResult;
 import icu.nyat.dreamjournalsystem.entity.Dream;
+import icu.nyat.dreamjournalsystem.util.DreamCursor;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.One;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.ResultMap;
+import org.apache.ibatis.annotations.Results;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -17,6 +35,26 @@ import java.util.List;
 @Mapper
 public interface DreamMapper extends BaseMapper<Dream> {
 
+    /**
+     * 列表项投影列：以 content_preview 代替 content，不读取 TEXT 溢出页
+     */
+    String LIST_ITEM_COLUMNS = "id, title, content_preview, dream_date, dream_type, mood_before_sleep, mood_after_wake, " +
+            "sleep_quality, vividness, is_favorite, tags, created_at";
+
+    /**
+     * 详情投影列：梦境全部列及以 s_ 为前缀的AI总结列（配合 LEFT JOIN ai_summaries s）
+     */
+    String DETAIL_COLUMNS = "d.id, d.user_id, d.title, d.content, d.dream_date, d.sleep_start_time, d.sleep_end_time, " +
+            "d.sleep_quality, d.mood_before_sleep, d.mood_after_wake, d.dream_type, d.vividness, " +
+            "d.is_favorite, d.is_private, d.tags, d.created_at, d.updated_at, " +
+            "s.id AS s_id, s.dream_id AS s_dream_id, s.summary AS s_summary, s.keywords AS s_keywords, " +
+            "s.emotion_analysis AS s_emotion_analysis, s.symbol_analysis AS s_symbol_analysis, " +
+            "s.psychological_insight AS s_psychological_insight, s.advice AS s_advice, s.ai_model AS s_ai_model, " +
+            "s.prompt_version AS s_prompt_version, s.confidence_score AS s_confidence_score, " +
+            "s.tokens_used AS s_tokens_used, s.generation_time_ms AS s_generation_time_ms, s.cache_hit AS s_cache_hit, " +
+            "s.status AS s_status, " +
+            "s.error_message AS s_error_message, s.created_at AS s_created_at, s.updated_at AS s_updated_at";
+
     /**
      * 分页查询用户的梦境列表
      */
@@ -28,6 +66,93 @@ public interface DreamMapper extends BaseMapper<Dream> {
                                      @Param("dreamType") Dream.DreamType dreamType,
                                      @Param("isFavorite") Boolean isFavorite);
 
+    /**
+     * 梦境详情及其AI总结（LEFT JOIN 一次查询，AI总结列以 s_ 为前缀映射到 aiSummary）
+     */
+    @Select("SELECT " + DETAIL_COLUMNS + " " +
+            "FROM dreams d LEFT JOIN ai_summaries s ON s.dream_id = d.id " +
+            "WHERE d.id = #{dreamId}")
+    @Results(id = "dreamDetail", value = {
+            @Result(column = "id", property = "id", id = true),
+            @Result(column = "user_id", property = "userId"),
+            @Result(column = "title", property = "title"),
+            @Result(column = "content", property = "content"),
+            @Result(column = "dream_date", property = "dreamDate"),
+            @Result(column = "sleep_start_time", property = "sleepStartTime"),
+            @Result(column = "sleep_end_time", property = "sleepEndTime"),
+            @Result(column = "sleep_quality", property = "sleepQuality"),
+            @Result(column = "mood_before_sleep", property = "moodBeforeSleep"),
+            @Result(column = "mood_after_wake", property = "moodAfterWake"),
+            @Result(column = "dream_type", property = "dreamType"),
+            @Result(column = "vividness", property = "vividness"),
+            @Result(column = "is_favorite", property = "isFavorite"),
+            @Result(column = "is_private", property = "isPrivate"),
+            @Result(column = "tags", property = "tags", typeHandler = JacksonTypeHandler.class),
+            @Result(column = "created_at", property = "createdAt"),
+            @Result(column = "updated_at", property = "updatedAt"),
+            @Result(property = "aiSummary", one = @One(
+                    resultMap = "icu.nyat.dreamjournalsystem.mapper.AISummaryMapper.aiSummaryResultMap",
+                    columnPrefix = "s_"))
+    })
+    DreamDetailResponse selectDetailById(@Param("dreamId") Long dreamId);
+
+    /**
+     * 导出：按列表顺序（做梦日期、创建时间、ID 倒序）以游标逐行读取一段梦境及其AI总结，
+     * after 为上一段最后一条的位置（首段为 null）。驱动在 fetchSize 为 Integer.MIN_VALUE 时逐行返回
+     */
+    @Select("<script>" +
+            "SELECT " + DETAIL_COLUMNS + " " +
+            "FROM dreams d LEFT JOIN ai_summaries s ON s.dream_id = d.id " +
+            "WHERE d.user_id = #{userId} " +
+            "<if test='after != null'>" +
+            "AND (d.dream_date &lt; #{after.dreamDate} OR (d.dream_date = #{after.dreamDate} AND " +
+            "(d.created_at &lt; #{after.createdAt} OR (d.created_at = #{after.createdAt} AND d.id &lt; #{after.id})))) " +
+            "</if>" +
+            "ORDER BY d.dream_date DESC, d.created_at DESC, d.id DESC LIMIT #{limit}" +
+            "</script>")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultMap("dreamDetail")
+    Cursor<DreamDetailResponse> cursorForExport(@Param("userId") Long userId,
+                                                @Param("after") DreamCursor after,
+                                                @Param("limit") int limit);
+
+    /**
+     * 批量写入（单条多行 INSERT，回填自增ID）
+     */
+    @Insert("<script>" +
+            "INSERT INTO dreams (user_id, title, content, dream_date, sleep_start_time, sleep_end_time, sleep_quality, " +
+            "mood_before_sleep, mood_after_wake, dream_type, vividness, is_favorite, is_private, tags, created_at, updated_at) VALUES " +
+            "<foreach collection='dreams' item='d' separator=','>" +
+            "(#{d.userId}, #{d.title}, #{d.content}, #{d.dreamDate}, #{d.sleepStartTime}, #{d.sleepEndTime}, #{d.sleepQuality}, " +
+            "#{d.moodBeforeSleep}, #{d.moodAfterWake}, #{d.dreamType}, #{d.vividness}, #{d.isFavorite}, #{d.isPrivate}, " +
+            "#{d.tags, typeHandler=com.baomidou.mybatisplus.extension.handlers.JacksonTypeHandler}, #{d.createdAt}, #{d.updatedAt})" +
+            "</foreach>" +
+            "</script>")
+    @Options(useGeneratedKeys = true, keyProperty = "dreams.id", keyColumn = "id")
+    int insertBatch(@Param("dreams") List<Dream> dreams);
+
+    /**
+     * 切换收藏状态（单条语句，WHERE 中校验所属用户，返回匹配行数）
+     */
+    @Update("UPDATE dreams SET is_favorite = NOT is_favorite, updated_at = #{updatedAt} " +
+            "WHERE id = #{dreamId} AND user_id = #{userId}")
+    int toggleFavorite(@Param("dreamId") Long dreamId,
+                       @Param("userId") Long userId,
+                       @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * 读取收藏状态（在切换语句之后、同一事务内读取新值）
+     */
+    @Select("SELECT is_favorite FROM dreams WHERE id = #{dreamId}")
+    Boolean selectIsFavorite(@Param("dreamId") Long dreamId);
+
+    /**
+     * 锁定读取统计维度相关的列（部分更新涉及这些列时计算统计增量，不读取正文）
+     */
+    @Select("SELECT id, user_id, dream_date, sleep_quality, mood_before_sleep, mood_after_wake, dream_type, " +
+            "vividness, is_favorite FROM dreams WHERE id = #{dreamId} AND user_id = #{userId} FOR UPDATE")
+    Dream selectStatFieldsForUpdate(@Param("dreamId") Long dreamId, @Param("userId") Long userId);
+
     /**
      * 统计用户梦境数量
      */
@@ -42,13 +167,83 @@ public interface DreamMapper extends BaseMapper<Dream> {
 
     /**
      * 统计指定月份的梦境数量
+     * 以 dream_date 半开区间代替 YEAR()/MONTH()，可走 idx_user_date_created 范围扫描
      */
-    @Select("SELECT COUNT(*) FROM dreams WHERE user_id = #{userId} AND YEAR(dream_date) = #{year} AND MONTH(dream_date) = #{month}")
+    @Select("SELECT COUNT(*) FROM dreams WHERE user_id = #{userId} " +
+            "AND dream_date >= MAKEDATE(#{year}, 1) + INTERVAL (#{month} - 1) MONTH " +
+            "AND dream_date < MAKEDATE(#{year}, 1) + INTERVAL #{month} MONTH")
     int countByUserIdAndMonth(@Param("userId") Long userId, @Param("year") int year, @Param("month") int month);
 
     /**
      * 获取用户最近的梦境
      */
-    @Select("SELECT * FROM dreams WHERE user_id = #{userId} ORDER BY dream_date DESC, created_at DESC LIMIT #{limit}")
-    List<Dream> findRecentByUserId(@Param("userId") Long userId, @Param("limit") int limit);
+    @Select("SELECT " + LIST_ITEM_COLUMNS + " FROM dreams WHERE user_id = #{userId} " +
+            "ORDER BY dream_date DESC, created_at DESC, id DESC LIMIT #{limit}")
+    @Results(id = "dreamListItem", value = {
+            @Result(column = "tags", property = "tags", typeHandler = JacksonTypeHandler.class)
+    })
+    List<DreamListItem> findRecentByUserId(@Param("userId") Long userId, @Param("limit") int limit);
+
+    /**
+     * 分页查询列表项（条件与排序由 Wrapper 提供）
+     */
+    @Select("SELECT " + LIST_ITEM_COLUMNS + " FROM dreams ${ew.customSqlSegment}")
+    @ResultMap("dreamListItem")
+    IPage<DreamListItem> selectListItemPage(IPage<DreamListItem> page,
+                                            @Param(Constants.WRAPPER) Wrapper<Dream> queryWrapper);
+
+    /**
+     * 查询列表项（条件、排序与 LIMIT 由 Wrapper 提供）
+     */
+    @Select("SELECT " + LIST_ITEM_COLUMNS + " FROM dreams ${ew.customSqlSegment}")
+    @ResultMap("dreamListItem")
+    List<DreamListItem> selectListItems(@Param(Constants.WRAPPER) Wrapper<Dream> queryWrapper);
+
+    /**
+     * 全文检索（ft_content ngram 索引，自然语言模式按相关度排序）
+     * 分页由 PaginationInnerInterceptor 追加 COUNT 与 LIMIT
+     */
+    @Select("SELECT id, title, content, dream_date, dream_type, is_favorite, tags, created_at, " +
+            "MATCH(title, content) AGAINST(#{query}) AS score " +
+            "FROM dreams " +
+            "WHERE user_id = #{userId} AND MATCH(title, content) AGAINST(#{query}) " +
+            "ORDER BY score DESC, dream_date DESC, id DESC")
+    @Results(id = "dreamSearchResult", value = {
+            @Result(column = "tags", property = "tags", typeHandler = JacksonTypeHandler.class)
+    })
+    IPage<DreamSearchResult> searchFullText(IPage<DreamSearchResult> page,
+                                            @Param("userId") Long userId,
+                                            @Param("query") String query);
+
+    /**
+     * 关键词检索降级方案（无全文索引时使用 LIKE）
+     */
+    @Select("SELECT id, title, content, dream_date, dream_type, is_favorite, tags, created_at " +
+            "FROM dreams " +
+            "WHERE user_id = #{userId} AND (title LIKE CONCAT('%', #{query}, '%') OR content LIKE CONCAT('%', #{query}, '%')) " +
+            "ORDER BY dream_date DESC, created_at DESC, id DESC")
+    @ResultMap("dreamSearchResult")
+    IPage<DreamSearchResult> searchLike(IPage<DreamSearchResult> page,
+                                        @Param("userId") Long userId,
+                                        @Param("query") String query);
+
+    /**
+     * 梦境表上的全文索引数量（启动时探测是否可用 MATCH ... AGAINST）
+     */
+    @Select("SELECT COUNT(*) FROM information_schema.STATISTICS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'dreams' AND INDEX_TYPE = 'FULLTEXT'")
+    int countFullTextIndexes();
+
+    /**
+     * 流式读取用户全部梦境的标题与正文（构建内存倒排索引）
+     */
+    @Select("SELECT id, title, content, dream_date FROM dreams WHERE user_id = #{userId}")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    void streamForIndex(@Param("userId") Long userId, ResultHandler<Dream> handler);
+
+    /**
+     * 读取单条梦境的索引字段（部分更新后刷新内存索引）
+     */
+    @Select("SELECT id, title, content, dream_date FROM dreams WHERE id = #{dreamId}")
+    Dream selectIndexFieldsById(@Param("dreamId") Long dreamId);
 }
@@ -0,0 +1,28 @@
+package icu.nyat.dreamjournalsystem.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import icu.nyat.dreamjournalsystem.entity.OperationLog;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 操作日志 Mapper
+ */
+@Mapper
+public interface OperationLogMapper extends BaseMapper<OperationLog> {
+
+    /**
+     * 批量写入（单条多行 INSERT）
+     */
+    @Insert("<script>" +
+            "INSERT INTO operation_logs (user_id, action, target_type, target_id, details, ip_address, user_agent, created_at) VALUES " +
+            "<foreach collection='logs' item='log' separator=','>" +
+            "(#{log.userId}, #{log.action}, #{log.targetType}, #{log.targetId}, #{log.details}, " +
+            "#{log.ipAddress}, #{log.userAgent}, #{log.createdAt})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("logs") List<OperationLog> logs);
+}
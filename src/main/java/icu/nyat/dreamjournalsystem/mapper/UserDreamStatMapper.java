@@ -0,0 +1,88 @@
+package icu.nyat.dreamjournalsystem.mapper;
+
+import icu.nyat.dreamjournalsystem.entity.UserDreamStat;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 用户梦境统计汇总 Mapper
+ * 联合主键 (user_id, dimension, bucket)，不继承 BaseMapper
+ */
+@Mapper
+public interface UserDreamStatMapper {
+
+    /**
+     * 按增量累加计数（不存在的分组自动插入）
+     * 调用方需按主键顺序传入，保证并发事务的加锁顺序一致
+     */
+    @Insert("<script>" +
+            "INSERT INTO user_dream_stats (user_id, dimension, bucket, cnt) VALUES " +
+            "<foreach collection='deltas' item='d' separator=','>" +
+            "(#{userId}, #{d.dimension}, #{d.bucket}, #{d.cnt})" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE cnt = cnt + VALUES(cnt)" +
+            "</script>")
+    int applyDeltas(@Param("userId") Long userId, @Param("deltas") Collection<StatDelta> deltas);
+
+    /**
+     * 查询除每日分布外的全部统计
+     */
+    @Select("SELECT dimension, bucket, cnt FROM user_dream_stats " +
+            "WHERE user_id = #{userId} AND dimension <> 'DAY' AND cnt <> 0")
+    List<UserDreamStat> selectSummary(@Param("userId") Long userId);
+
+    /**
+     * 查询日期范围内的每日分布（bucket 为 yyyy-MM-dd，字典序即日期序）
+     */
+    @Select("SELECT dimension, bucket, cnt FROM user_dream_stats " +
+            "WHERE user_id = #{userId} AND dimension = 'DAY' AND bucket BETWEEN #{from} AND #{to} AND cnt <> 0")
+    List<UserDreamStat> selectDays(@Param("userId") Long userId, @Param("from") String from, @Param("to") String to);
+
+    /**
+     * 汇总表为空而梦境表有数据（升级后首次启动，需要回填）
+     */
+    @Select("SELECT NOT EXISTS (SELECT 1 FROM user_dream_stats) AND EXISTS (SELECT 1 FROM dreams)")
+    boolean needsBackfill();
+
+    @Delete("DELETE FROM user_dream_stats WHERE user_id = #{userId}")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    /**
+     * 从梦境表重新聚合单个用户的全部统计
+     */
+    @Insert("INSERT INTO user_dream_stats (user_id, dimension, bucket, cnt) " +
+            "SELECT user_id, 'TOTAL', '', COUNT(*) FROM dreams WHERE user_id = #{userId} GROUP BY user_id " +
+            "UNION ALL SELECT user_id, 'FAVORITE', '', COUNT(*) FROM dreams " +
+            "WHERE user_id = #{userId} AND is_favorite = TRUE GROUP BY user_id " +
+            "UNION ALL SELECT user_id, 'TYPE', dream_type, COUNT(*) FROM dreams " +
+            "WHERE user_id = #{userId} AND dream_type IS NOT NULL GROUP BY user_id, dream_type " +
+            "UNION ALL SELECT user_id, 'MOOD_BEFORE', mood_before_sleep, COUNT(*) FROM dreams " +
+            "WHERE user_id = #{userId} AND mood_before_sleep IS NOT NULL GROUP BY user_id, mood_before_sleep " +
+            "UNION ALL SELECT user_id, 'MOOD_AFTER', mood_after_wake, COUNT(*) FROM dreams " +
+            "WHERE user_id = #{userId} AND mood_after_wake IS NOT NULL GROUP BY user_id, mood_after_wake " +
+            "UNION ALL SELECT user_id, 'QUALITY', sleep_quality, COUNT(*) FROM dreams " +
+            "WHERE user_id = #{userId} AND sleep_quality IS NOT NULL GROUP BY user_id, sleep_quality " +
+            "UNION ALL SELECT user_id, 'VIVIDNESS', CAST(vividness AS CHAR), COUNT(*) FROM dreams " +
+            "WHERE user_id = #{userId} AND vividness IS NOT NULL GROUP BY user_id, vividness " +
+            "UNION ALL SELECT user_id, 'MONTH', DATE_FORMAT(dream_date, '%Y-%m'), COUNT(*) FROM dreams " +
+            "WHERE user_id = #{userId} GROUP BY user_id, DATE_FORMAT(dream_date, '%Y-%m') " +
+            "UNION ALL SELECT user_id, 'DAY', DATE_FORMAT(dream_date, '%Y-%m-%d'), COUNT(*) FROM dreams " +
+            "WHERE user_id = #{userId} GROUP BY user_id, dream_date")
+    int rebuildFromDreams(@Param("userId") Long userId);
+
+    /**
+     * 统计增量
+     *
+     * @param dimension 统计维度
+     * @param bucket    分组值
+     * @param cnt       计数变化量（可为负）
+     */
+    record StatDelta(UserDreamStat.Dimension dimension, String bucket, int cnt) {
+    }
+}
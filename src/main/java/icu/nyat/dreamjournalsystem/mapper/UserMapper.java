@@ -3,9 +3,12 @@ package icu.nyat.dreamjournalsystem.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import icu.nyat.dreamjournalsystem.entity.User;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 
 /**
  * 用户 Mapper
@@ -38,16 +41,40 @@ public interface UserMapper extends BaseMapper<User> {
     int countByEmail(@Param("email") String email);
 
     /**
-     * 更新登录信息
+     * 流式读取全部用户名和邮箱（MySQL 驱动在 fetchSize 为 Integer.MIN_VALUE 时逐行返回）
      */
-    @Update("UPDATE users SET last_login_at = NOW(), last_login_ip = #{ip}, login_attempts = 0 WHERE id = #{userId}")
-    int updateLoginInfo(@Param("userId") Long userId, @Param("ip") String ip);
+    @Select("SELECT username, email FROM users")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    void streamUsernamesAndEmails(ResultHandler<User> handler);
 
     /**
-     * 增加登录失败次数
+     * 按主键顺序分批读取用户ID
      */
-    @Update("UPDATE users SET login_attempts = login_attempts + 1 WHERE id = #{userId}")
-    int incrementLoginAttempts(@Param("userId") Long userId);
+    @Select("SELECT id FROM users WHERE id > #{afterId} ORDER BY id LIMIT #{limit}")
+    java.util.List<Long> selectIdsAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 批量更新登录信息（单条多行 UPDATE，由 LastLoginBuffer 合并后写入）
+     */
+    @Update("<script>" +
+            "UPDATE users u JOIN (" +
+            "<foreach collection='entries' item='e' separator=' UNION ALL '>" +
+            "SELECT #{e.userId} AS id, #{e.loginAt} AS login_at, #{e.ip} AS login_ip" +
+            "</foreach>" +
+            ") v ON u.id = v.id " +
+            "SET u.last_login_at = v.login_at, u.last_login_ip = v.login_ip, u.login_attempts = 0" +
+            "</script>")
+    int batchUpdateLoginInfo(@Param("entries") java.util.Collection<LoginInfo> entries);
+
+    /**
+     * 登录信息
+     *
+     * @param userId  用户ID
+     * @param loginAt 登录时间
+     * @param ip      登录IP
+     */
+    record LoginInfo(Long userId, java.time.LocalDateTime loginAt, String ip) {
+    }
 
     /**
      * 锁定账户
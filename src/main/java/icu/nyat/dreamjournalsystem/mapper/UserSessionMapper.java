@@ -0,0 +1,46 @@
+package icu.nyat.dreamjournalsystem.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import icu.nyat.dreamjournalsystem.entity.UserSession;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户会话 Mapper
+ */
+@Mapper
+public interface UserSessionMapper extends BaseMapper<UserSession> {
+
+    /**
+     * 根据刷新令牌摘要查找会话（uk_token_hash 唯一索引）
+     */
+    @Select("SELECT * FROM user_sessions WHERE token_hash = #{tokenHash}")
+    UserSession findByTokenHash(@Param("tokenHash") String tokenHash);
+
+    /**
+     * 轮换刷新令牌（以旧摘要为条件，并发刷新时只有一个请求成功）
+     */
+    @Update("UPDATE user_sessions SET token_hash = #{newTokenHash}, expires_at = #{expiresAt} " +
+            "WHERE id = #{id} AND token_hash = #{oldTokenHash}")
+    int rotate(@Param("id") Long id,
+               @Param("oldTokenHash") String oldTokenHash,
+               @Param("newTokenHash") String newTokenHash,
+               @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * 删除用户的全部会话
+     */
+    @Delete("DELETE FROM user_sessions WHERE user_id = #{userId}")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    /**
+     * 分批删除已过期会话（按 idx_expires_at 范围删除，单批加锁行数受 limit 限制）
+     */
+    @Delete("DELETE FROM user_sessions WHERE expires_at < NOW() ORDER BY expires_at LIMIT #{limit}")
+    int deleteExpiredBatch(@Param("limit") int limit);
+}
@@ -0,0 +1,151 @@
+package icu.nyat.dreamjournalsystem.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import icu.nyat.dreamjournalsystem.dto.response.DreamSearchResult;
+import icu.nyat.dreamjournalsystem.entity.Dream;
+import icu.nyat.dreamjournalsystem.mapper.DreamMapper;
+import icu.nyat.dreamjournalsystem.util.TransactionHooks;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 梦境内存倒排索引
+ * <p>
+ * 每个用户一个索引段，在其首次即时搜索时从数据库流式加载，之后随创建/修改/删除在事务提交后增量更新；
+ * 未加载的用户不做任何维护。段按估算内存计权，总量超过预算时淘汰最近最少使用的段
+ * （Caffeine 的 W-TinyLFU 近似 LRU）。
+ */
+@Slf4j
+@Component
+public class DreamIndexService {
+
+    private static final String CACHE_NAME = "dream-index";
+    private static final int UPDATE_LOCK_STRIPES = 64;
+
+    private final DreamMapper dreamMapper;
+    private final Cache<Long, UserSegment> segments;
+
+    /**
+     * 按用户分段的更新锁：部分更新时在锁内读库再写入索引，删除也经过同一把锁，
+     * 保证同一用户的更新按顺序生效；数据库读取不在缓存的计算锁内进行，不阻塞其他段的访问与淘汰
+     */
+    private final Object[] updateLocks = new Object[UPDATE_LOCK_STRIPES];
+
+    public DreamIndexService(DreamMapper dreamMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${dream.index.memory-budget:256MB}") DataSize memoryBudget) {
+        this.dreamMapper = dreamMapper;
+        this.segments = Caffeine.newBuilder()
+                // 以 KB 计权，避免 int 溢出
+                .maximumWeight(Math.max(1, memoryBudget.toKilobytes()))
+                .weigher((Long userId, UserSegment segment) ->
+                        (int) Math.min(Integer.MAX_VALUE, segment.estimatedBytes() / 1024 + 1))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, segments, CACHE_NAME);
+        for (int i = 0; i < updateLocks.length; i++) {
+            updateLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * 搜索用户的梦境（标题与正文全部词命中，按做梦日期倒序）
+     */
+    public List<DreamSearchResult> search(Long userId, String query, int limit) {
+        UserSegment segment = segments.get(userId, this::load);
+        return segment.search(query, limit).stream()
+                .map(hit -> {
+                    DreamSearchResult result = new DreamSearchResult();
+                    result.setId(hit.dreamId());
+                    result.setTitle(hit.title());
+                    result.setDreamDate(hit.dreamDate());
+                    return result;
+                })
+                .toList();
+    }
+
+    /**
+     * 梦境创建或修改后更新索引（在事务中调用时于提交后执行）
+     */
+    public void onDreamSaved(Dream dream) {
+        Long dreamId = dream.getId();
+        String title = dream.getTitle();
+        String content = dream.getContent();
+        LocalDate dreamDate = dream.getDreamDate();
+        TransactionHooks.afterCommit(() -> segments.asMap().computeIfPresent(dream.getUserId(), (userId, segment) -> {
+            segment.upsert(dreamId, title, content, dreamDate);
+            return segment;
+        }));
+    }
+
+    /**
+     * 部分更新了标题、正文或日期后更新索引：仅当该用户的索引段已加载时，提交后重新读取这一条的索引字段。
+     * 读取在用户的更新锁内进行，并发的多次更新无论提交顺序如何都以最后读到的已提交数据为准
+     */
+    public void onDreamPatched(Long userId, Long dreamId) {
+        TransactionHooks.afterCommit(() -> {
+            synchronized (updateLock(userId)) {
+                if (segments.getIfPresent(userId) == null) {
+                    return;
+                }
+                Dream dream = dreamMapper.selectIndexFieldsById(dreamId);
+                if (dream == null) {
+                    return;
+                }
+                segments.asMap().computeIfPresent(userId, (key, segment) -> {
+                    segment.upsert(dream.getId(), dream.getTitle(), dream.getContent(), dream.getDreamDate());
+                    return segment;
+                });
+            }
+        });
+    }
+
+    /**
+     * 梦境删除后更新索引
+     */
+    public void onDreamDeleted(Long userId, Long dreamId) {
+        TransactionHooks.afterCommit(() -> {
+            synchronized (updateLock(userId)) {
+                segments.asMap().computeIfPresent(userId, (key, segment) -> {
+                    segment.remove(dreamId);
+                    return segment;
+                });
+            }
+        });
+    }
+
+    private Object updateLock(Long userId) {
+        return updateLocks[Math.floorMod(userId.hashCode(), updateLocks.length)];
+    }
+
+    /**
+     * 丢弃用户的索引段，下次搜索时重新加载
+     */
+    public void invalidate(Long userId) {
+        segments.invalidate(userId);
+    }
+
+    /**
+     * 加载用户索引段
+     * 与提交后的增量更新作用于同一键：加载期间到达的更新会等待加载完成后再应用（upsert 可重复执行）
+     */
+    private UserSegment load(Long userId) {
+        long start = System.currentTimeMillis();
+        UserSegment segment = new UserSegment();
+        dreamMapper.streamForIndex(userId, context -> {
+            Dream dream = context.getResultObject();
+            segment.upsert(dream.getId(), dream.getTitle(), dream.getContent(), dream.getDreamDate());
+        });
+        log.debug("加载用户 {} 的梦境索引: {} 条, 耗时 {}ms", userId, segment.size(),
+                System.currentTimeMillis() - start);
+        return segment;
+    }
+}
@@ -0,0 +1,128 @@
+package icu.nyat.dreamjournalsystem.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * 梦境文本分词
+ * <ul>
+ *     <li>中日韩文字：索引时输出单字与相邻二元组，查询时单字查单字、两字以上拆为二元组</li>
+ *     <li>其他字母/数字：按连续片段切分为小写单词</li>
+ * </ul>
+ */
+final class DreamTokenizer {
+
+    private DreamTokenizer() {
+    }
+
+    /**
+     * 查询词
+     *
+     * @param terms  必须全部命中的词
+     * @param prefix 输入中的最后一个单词（边输入边搜索时按前缀匹配），没有时为 null
+     */
+    record Query(List<String> terms, String prefix) {
+
+        boolean isEmpty() {
+            return terms.isEmpty() && prefix == null;
+        }
+    }
+
+    /**
+     * 索引分词（可能输出重复词，由调用方去重）
+     */
+    static void tokenize(String text, Consumer<String> sink) {
+        if (text == null) {
+            return;
+        }
+        int i = 0;
+        int length = text.length();
+        while (i < length) {
+            int cp = text.codePointAt(i);
+            if (isCjk(cp)) {
+                int end = i;
+                while (end < length && isCjk(text.codePointAt(end))) {
+                    end += Character.charCount(text.codePointAt(end));
+                }
+                emitCjk(text, i, end, sink, true);
+                i = end;
+            } else if (Character.isLetterOrDigit(cp)) {
+                int end = i;
+                while (end < length && isWordChar(text.codePointAt(end))) {
+                    end += Character.charCount(text.codePointAt(end));
+                }
+                sink.accept(text.substring(i, end).toLowerCase(Locale.ROOT));
+                i = end;
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+    }
+
+    /**
+     * 查询分词：最后一个拉丁单词如果位于输入末尾则作为前缀
+     */
+    static Query parseQuery(String query) {
+        List<String> terms = new ArrayList<>();
+        String prefix = null;
+        int i = 0;
+        int length = query.length();
+        while (i < length) {
+            int cp = query.codePointAt(i);
+            if (isCjk(cp)) {
+                int end = i;
+                while (end < length && isCjk(query.codePointAt(end))) {
+                    end += Character.charCount(query.codePointAt(end));
+                }
+                if (query.codePointCount(i, end) == 1) {
+                    terms.add(query.substring(i, end));
+                } else {
+                    emitCjk(query, i, end, terms::add, false);
+                }
+                i = end;
+            } else if (Character.isLetterOrDigit(cp)) {
+                int end = i;
+                while (end < length && isWordChar(query.codePointAt(end))) {
+                    end += Character.charCount(query.codePointAt(end));
+                }
+                String word = query.substring(i, end).toLowerCase(Locale.ROOT);
+                if (end == length) {
+                    prefix = word;
+                } else {
+                    terms.add(word);
+                }
+                i = end;
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+        return new Query(terms, prefix);
+    }
+
+    private static void emitCjk(String text, int start, int end, Consumer<String> sink, boolean unigrams) {
+        int previous = -1;
+        for (int i = start; i < end; i += Character.charCount(text.codePointAt(i))) {
+            if (unigrams) {
+                sink.accept(text.substring(i, i + Character.charCount(text.codePointAt(i))));
+            }
+            if (previous >= 0) {
+                sink.accept(text.substring(previous, i + Character.charCount(text.codePointAt(i))));
+            }
+            previous = i;
+        }
+    }
+
+    private static boolean isWordChar(int cp) {
+        return Character.isLetterOrDigit(cp) && !isCjk(cp);
+    }
+
+    static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
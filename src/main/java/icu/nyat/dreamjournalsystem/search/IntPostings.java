@@ -0,0 +1,90 @@
+package icu.nyat.dreamjournalsystem.search;
+
+import java.util.Arrays;
+
+/**
+ * 倒排列表：升序的文档号（int 原始数组，避免装箱）
+ */
+final class IntPostings {
+
+    private int[] docs;
+    private int size;
+
+    IntPostings() {
+        this.docs = new int[4];
+    }
+
+    IntPostings(int[] docs, int size) {
+        this.docs = docs;
+        this.size = size;
+    }
+
+    /**
+     * 追加文档号（新文档号总是大于已有的，追加后仍有序）
+     */
+    void add(int doc) {
+        if (size > 0 && docs[size - 1] == doc) {
+            return;
+        }
+        if (size == docs.length) {
+            docs = Arrays.copyOf(docs, size + (size >> 1) + 1);
+        }
+        docs[size++] = doc;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(int index) {
+        return docs[index];
+    }
+
+    /**
+     * 内部数组（只读，有效长度为 size()）
+     */
+    int[] docs() {
+        return docs;
+    }
+
+    /**
+     * 按映射表重排文档号（压缩时使用，映射为 -1 表示已删除）
+     */
+    IntPostings remap(int[] mapping) {
+        int[] remapped = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int doc = mapping[docs[i]];
+            if (doc >= 0) {
+                remapped[count++] = doc;
+            }
+        }
+        return count == 0 ? null : new IntPostings(remapped, count);
+    }
+
+    long estimatedBytes() {
+        return 32L + 16L + (long) docs.length * Integer.BYTES;
+    }
+
+    /**
+     * 有序数组求交集，结果写入新数组并返回有效长度前缀
+     */
+    static int[] intersect(int[] a, int aLength, int[] b, int bLength) {
+        int[] result = new int[Math.min(aLength, bLength)];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < aLength && j < bLength) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
@@ -0,0 +1,301 @@
+package icu.nyat.dreamjournalsystem.search;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 单个用户的倒排索引段
+ * <p>
+ * 文档号为段内递增的 int，新增与修改都分配新文档号并追加到倒排列表末尾，因此列表天然有序；
+ * 修改与删除只对旧文档号打删除标记，删除标记超过三分之一时整体压缩。
+ * 读写通过读写锁隔离，查询之间互不阻塞。
+ */
+final class UserSegment {
+
+    /**
+     * 查询命中
+     */
+    record Hit(Long dreamId, String title, LocalDate dreamDate) {
+    }
+
+    private static final int COMPACT_MIN_DELETED = 64;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, IntPostings> postings = new HashMap<>();
+
+    /**
+     * 拉丁单词词表（有序），前缀查询只扫描对应区间
+     */
+    private final NavigableSet<String> words = new TreeSet<>();
+    private final Map<Long, Integer> docByDreamId = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+
+    private long[] dreamIds = new long[16];
+    private long[] dreamDates = new long[16];
+    private String[] titles = new String[16];
+    private int docCount;
+    private int deletedCount;
+
+    /**
+     * 新增或替换梦境
+     */
+    void upsert(Long dreamId, String title, String content, LocalDate dreamDate) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(dreamId);
+            int doc = docCount++;
+            ensureCapacity(docCount);
+            dreamIds[doc] = dreamId;
+            dreamDates[doc] = dreamDate != null ? dreamDate.toEpochDay() : Long.MIN_VALUE;
+            titles[doc] = title;
+            docByDreamId.put(dreamId, doc);
+
+            DreamTokenizer.tokenize(title, term -> index(term, doc));
+            DreamTokenizer.tokenize(content, term -> index(term, doc));
+
+            if (deletedCount >= COMPACT_MIN_DELETED && deletedCount * 3 > docCount) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(String term, int doc) {
+        postings.computeIfAbsent(term, t -> {
+            if (!DreamTokenizer.isCjk(t.codePointAt(0))) {
+                words.add(t);
+            }
+            return new IntPostings();
+        }).add(doc);
+    }
+
+    /**
+     * 删除梦境
+     */
+    void remove(Long dreamId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(dreamId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查询：全部词命中（AND），按做梦日期倒序
+     */
+    List<Hit> search(String query, int limit) {
+        DreamTokenizer.Query parsed = DreamTokenizer.parseQuery(query);
+        if (parsed.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            // 从最短的列表开始求交集
+            List<IntPostings> lists = new ArrayList<>(parsed.terms().size());
+            for (String term : parsed.terms()) {
+                IntPostings list = postings.get(term);
+                if (list == null) {
+                    return Collections.emptyList();
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(IntPostings::size));
+
+            int[] matched = null;
+            int matchedLength = 0;
+            for (IntPostings list : lists) {
+                if (matched == null) {
+                    matched = list.docs();
+                    matchedLength = list.size();
+                } else {
+                    matched = IntPostings.intersect(matched, matchedLength, list.docs(), list.size());
+                    matchedLength = matched.length;
+                }
+                if (matchedLength == 0) {
+                    return Collections.emptyList();
+                }
+            }
+            if (parsed.prefix() != null) {
+                int[] prefixed = prefixUnion(parsed.prefix());
+                if (matched == null) {
+                    matched = prefixed;
+                    matchedLength = prefixed.length;
+                } else {
+                    matched = IntPostings.intersect(matched, matchedLength, prefixed, prefixed.length);
+                    matchedLength = matched.length;
+                }
+            }
+            return topHits(matched, matchedLength, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return docCount - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 估算内存占用（字节），用于缓存按内存预算淘汰
+     */
+    long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 64L + (long) dreamIds.length * (Long.BYTES * 2 + 8) + docByDreamId.size() * 48L;
+            for (Map.Entry<String, IntPostings> entry : postings.entrySet()) {
+                bytes += 48L + 40L + entry.getKey().length() * 2L + entry.getValue().estimatedBytes();
+            }
+            for (int doc = 0; doc < docCount; doc++) {
+                if (titles[doc] != null) {
+                    bytes += 40L + titles[doc].length() * 2L;
+                }
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 前缀匹配的单词对应的倒排列表并集
+     */
+    private int[] prefixUnion(String prefix) {
+        BitSet union = new BitSet(docCount);
+        for (String word : words.subSet(prefix, true, prefix + Character.MAX_VALUE, false)) {
+            IntPostings list = postings.get(word);
+            for (int i = 0; i < list.size(); i++) {
+                union.set(list.get(i));
+            }
+        }
+        return union.stream().toArray();
+    }
+
+    /**
+     * 取日期最新的 limit 条：大小为 limit 的小顶堆，O(n log k)，不对全部命中排序
+     */
+    private List<Hit> topHits(int[] docs, int length, int limit) {
+        int[] heap = new int[Math.min(limit, length)];
+        int heapSize = 0;
+        for (int i = 0; i < length; i++) {
+            int doc = docs[i];
+            if (deleted.get(doc)) {
+                continue;
+            }
+            if (heapSize < heap.length) {
+                heap[heapSize] = doc;
+                siftUp(heap, heapSize++);
+            } else if (heap.length > 0 && newer(doc, heap[0])) {
+                heap[0] = doc;
+                siftDown(heap, heapSize);
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(heapSize);
+        while (heapSize > 0) {
+            int doc = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize);
+            long date = dreamDates[doc];
+            hits.add(new Hit(dreamIds[doc], titles[doc], date == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(date)));
+        }
+        Collections.reverse(hits);
+        return hits;
+    }
+
+    /**
+     * 排序键 (dream_date, dreamId) 比较：a 是否排在 b 之前
+     */
+    private boolean newer(int a, int b) {
+        if (dreamDates[a] != dreamDates[b]) {
+            return dreamDates[a] > dreamDates[b];
+        }
+        return dreamIds[a] > dreamIds[b];
+    }
+
+    private void siftUp(int[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!newer(heap[parent], heap[index])) {
+                break;
+            }
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int size) {
+        int index = 0;
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                break;
+            }
+            int oldest = left + 1 < size && newer(heap[left], heap[left + 1]) ? left + 1 : left;
+            if (!newer(heap[index], heap[oldest])) {
+                break;
+            }
+            swap(heap, index, oldest);
+            index = oldest;
+        }
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+    }
+
+    private void removeInternal(Long dreamId) {
+        Integer doc = docByDreamId.remove(dreamId);
+        if (doc != null) {
+            deleted.set(doc);
+            titles[doc] = null;
+            deletedCount++;
+        }
+    }
+
+    /**
+     * 去除已删除文档并重新编号
+     */
+    private void compact() {
+        int[] mapping = new int[docCount];
+        int next = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (deleted.get(doc)) {
+                mapping[doc] = -1;
+            } else {
+                mapping[doc] = next;
+                dreamIds[next] = dreamIds[doc];
+                dreamDates[next] = dreamDates[doc];
+                titles[next] = titles[doc];
+                docByDreamId.put(dreamIds[next], next);
+                next++;
+            }
+        }
+        Arrays.fill(titles, next, docCount, null);
+        postings.replaceAll((term, list) -> list.remap(mapping));
+        postings.values().removeIf(Objects::isNull);
+        words.retainAll(postings.keySet());
+        deleted.clear();
+        docCount = next;
+        deletedCount = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > dreamIds.length) {
+            int newLength = Math.max(capacity, dreamIds.length + (dreamIds.length >> 1));
+            dreamIds = Arrays.copyOf(dreamIds, newLength);
+            dreamDates = Arrays.copyOf(dreamDates, newLength);
+            titles = Arrays.copyOf(titles, newLength);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package icu.nyat.dreamjournalsystem.security;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 注入当前登录用户ID
+ * 由 {@link CurrentUserIdArgumentResolver} 从认证主体中读取，不查询数据库
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUserId {
+}
@@ -0,0 +1,54 @@
+package icu.nyat.dreamjournalsystem.security;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 内存令牌吊销存储（单节点 / 测试用 Redis 替身）
+ */
+@Component
+@ConditionalOnProperty(name = "security.revocation.store", havingValue = "memory")
+public class InMemoryTokenRevocationStore implements TokenRevocationStore {
+
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void revoke(String tokenId, Duration ttl) {
+        revoked.put(tokenId, Instant.now().plus(ttl));
+        listeners.forEach(listener -> listener.accept(tokenId));
+    }
+
+    @Override
+    public boolean isRevoked(String tokenId) {
+        Instant expiresAt = revoked.get(tokenId);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt.isBefore(Instant.now())) {
+            revoked.remove(tokenId, expiresAt);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void forEachRevoked(Consumer<String> action) {
+        Instant now = Instant.now();
+        revoked.entrySet().removeIf(entry -> entry.getValue().isBefore(now));
+        revoked.keySet().forEach(action);
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+}
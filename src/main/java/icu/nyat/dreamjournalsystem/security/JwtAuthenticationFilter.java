@@ -4,46 +4,72 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * JWT 认证过滤器
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider jwtTokenProvider;
-    private final UserDetailsService userDetailsService;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final TokenRevocationService tokenRevocationService;
+
+    /**
+     * 认证耗时（不含后续过滤器链），按结果区分：authenticated / anonymous / rejected
+     */
+    private final Timer authenticatedTimer;
+    private final Timer anonymousTimer;
+    private final Timer rejectedTimer;
 
     private static final String AUTHORIZATION_HEADER = "Authorization";
     private static final String BEARER_PREFIX = "Bearer ";
+    private static final String METRIC_NAME = "security.jwt.filter";
+
+    public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider,
+                                   UserDetailsServiceImpl userDetailsService,
+                                   TokenRevocationService tokenRevocationService,
+                                   MeterRegistry meterRegistry) {
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.userDetailsService = userDetailsService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.authenticatedTimer = meterRegistry.timer(METRIC_NAME, "result", "authenticated");
+        this.anonymousTimer = meterRegistry.timer(METRIC_NAME, "result", "anonymous");
+        this.rejectedTimer = meterRegistry.timer(METRIC_NAME, "result", "rejected");
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
+        long start = System.nanoTime();
+        Timer timer = rejectedTimer;
         try {
             String jwt = getJwtFromRequest(request);
+            if (!StringUtils.hasText(jwt)) {
+                timer = anonymousTimer;
+            }
+
+            JwtClaims claims = StringUtils.hasText(jwt) ? jwtTokenProvider.parseToken(jwt) : null;
 
-            if (StringUtils.hasText(jwt) && jwtTokenProvider.validateToken(jwt)) {
-                String username = jwtTokenProvider.getUsernameFromToken(jwt);
+            if (claims != null && claims.isAccessToken() && !tokenRevocationService.isRevoked(claims)) {
+                UserDetails userDetails = resolvePrincipal(claims);
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                
-                if (jwtTokenProvider.validateToken(jwt, userDetails)) {
+                if (userDetails != null && userDetails.getUsername().equals(claims.subject())) {
                     UsernamePasswordAuthenticationToken authentication =
                             new UsernamePasswordAuthenticationToken(
                                     userDetails,
@@ -53,15 +79,33 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                     SecurityContextHolder.getContext().setAuthentication(authentication);
+                    timer = authenticatedTimer;
                 }
             }
         } catch (Exception ex) {
             log.error("Could not set user authentication in security context", ex);
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
 
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * 解析请求主体
+     * 新令牌按 uid 从主体缓存取当前状态与角色（禁用、降级在缓存失效后立即生效），
+     * 旧令牌在过渡期内按用户名回查
+     */
+    private UserDetails resolvePrincipal(JwtClaims claims) {
+        if (!claims.isLegacy()) {
+            return userDetailsService.loadUserById(claims.userId());
+        }
+        if (!jwtTokenProvider.isAcceptLegacyTokens()) {
+            return null;
+        }
+        return userDetailsService.loadUserByUsername(claims.subject());
+    }
+
     /**
      * 从请求中获取JWT
      */
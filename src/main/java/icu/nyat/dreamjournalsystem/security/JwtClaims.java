@@ -0,0 +1,50 @@
+package icu.nyat.dreamjournalsystem.security;
+
+import icu.nyat.dreamjournalsystem.entity.User;
+
+import java.time.Instant;
+
+/**
+ * 已验证的令牌声明（不可变）
+ * 由 {@link JwtTokenProvider#parseToken(String)} 一次验签解析得到
+ *
+ * @param tokenId    令牌ID（jti；旧令牌为 "legacy:" 加令牌摘要）
+ * @param subject    用户名
+ * @param userId     用户ID（旧令牌为 null）
+ * @param role       用户角色（旧令牌为 null）
+ * @param sessionId  会话ID（访问令牌所属的 user_sessions 记录，可能为 null）
+ * @param type       令牌类型 access / refresh
+ * @param issuedAt   签发时间
+ * @param expiration 过期时间
+ */
+public record JwtClaims(String tokenId,
+                        String subject,
+                        Long userId,
+                        User.UserRole role,
+                        Long sessionId,
+                        String type,
+                        Instant issuedAt,
+                        Instant expiration) {
+
+    public static final String TYPE_ACCESS = "access";
+    public static final String TYPE_REFRESH = "refresh";
+
+    public boolean isAccessToken() {
+        return TYPE_ACCESS.equals(type);
+    }
+
+    public boolean isRefreshToken() {
+        return TYPE_REFRESH.equals(type);
+    }
+
+    /**
+     * 是否为不含 uid/role 声明的旧令牌
+     */
+    public boolean isLegacy() {
+        return userId == null || role == null;
+    }
+
+    public boolean isExpired(Instant now) {
+        return !expiration.isAfter(now);
+    }
+}
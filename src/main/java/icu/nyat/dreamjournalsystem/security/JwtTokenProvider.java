@@ -1,19 +1,28 @@
 package icu.nyat.dreamjournalsystem.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import icu.nyat.dreamjournalsystem.entity.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.UUID;
 
 /**
  * JWT Token 提供者
@@ -28,127 +37,180 @@ public class JwtTokenProvider {
     @Value("${jwt.access-token-expiration}")
     private Long accessTokenExpiration;
 
-    @Value("${jwt.refresh-token-expiration}")
-    private Long refreshTokenExpiration;
-
     /**
-     * 获取签名密钥
+     * 是否接受不含 uid/role 声明的旧令牌（过渡期结束后关闭）
      */
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
+    @Value("${jwt.accept-legacy-tokens:true}")
+    private boolean acceptLegacyTokens;
+
+    @Value("${jwt.verified-cache.enabled:true}")
+    private boolean verifiedCacheEnabled;
+
+    @Value("${jwt.verified-cache.max-size:10000}")
+    private long verifiedCacheMaxSize;
+
+    @Value("${jwt.verified-cache.ttl:60s}")
+    private Duration verifiedCacheTtl;
+
+    private static final String CLAIM_TYPE = "type";
+    private static final String CLAIM_USER_ID = "uid";
+    private static final String CLAIM_ROLE = "role";
+    private static final String CLAIM_SESSION_ID = "sid";
 
     /**
-     * 生成访问令牌
+     * 旧令牌没有 jti，以令牌摘要作为ID，使其同样可以吊销
      */
-    public String generateAccessToken(Authentication authentication) {
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        return generateToken(userDetails.getUsername(), accessTokenExpiration, "access");
-    }
+    private static final String LEGACY_TOKEN_ID_PREFIX = "legacy:";
 
     /**
-     * 生成访问令牌（通过用户名）
+     * 签名密钥与解析器只构建一次（均为线程安全）
      */
-    public String generateAccessToken(String username) {
-        return generateToken(username, accessTokenExpiration, "access");
-    }
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
 
     /**
-     * 生成刷新令牌
+     * 最近验证通过的令牌：SHA-256 摘要 -> 声明，条目不会晚于令牌自身过期
      */
-    public String generateRefreshToken(String username) {
-        return generateToken(username, refreshTokenExpiration, "refresh");
+    private Cache<String, JwtClaims> verifiedCache;
+
+    @PostConstruct
+    public void init() {
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        if (verifiedCacheEnabled) {
+            this.verifiedCache = Caffeine.newBuilder()
+                    .maximumSize(verifiedCacheMaxSize)
+                    .expireAfter(new ClaimsExpiry(verifiedCacheTtl))
+                    .build();
+        }
     }
 
     /**
-     * 生成令牌
+     * 生成访问令牌
+     * 刷新令牌为有状态的随机串，由 UserSessionService 签发
+     *
+     * @param sessionId 所属会话ID，退出登录时据此删除会话
      */
-    private String generateToken(String username, Long expiration, String tokenType) {
+    public String generateAccessToken(UserPrincipal principal, Long sessionId) {
         Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + expiration);
+        Date expiryDate = new Date(now.getTime() + accessTokenExpiration);
 
         Map<String, Object> claims = new HashMap<>();
-        claims.put("type", tokenType);
+        claims.put(CLAIM_TYPE, JwtClaims.TYPE_ACCESS);
+        claims.put(CLAIM_USER_ID, principal.getId());
+        claims.put(CLAIM_ROLE, principal.getRole().name());
+        claims.put(CLAIM_SESSION_ID, sessionId);
 
         return Jwts.builder()
                 .claims(claims)
-                .subject(username)
+                .id(UUID.randomUUID().toString())
+                .subject(principal.getUsername())
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
     /**
-     * 从令牌中获取用户名
+     * 验签并提取声明（一次解析）
+     *
+     * @return 令牌有效时返回声明，无效或过期时返回 null
      */
-    public String getUsernameFromToken(String token) {
-        return extractClaim(token, Claims::getSubject);
-    }
-
-    /**
-     * 获取令牌过期时间
-     */
-    public Date getExpirationDateFromToken(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
+    public JwtClaims parseToken(String token) {
+        if (verifiedCache == null) {
+            return verify(token);
+        }
 
-    /**
-     * 提取声明
-     */
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
+        String digest = digest(token);
+        JwtClaims cached = verifiedCache.getIfPresent(digest);
+        if (cached != null && !cached.isExpired(Instant.now())) {
+            return cached;
+        }
 
-    /**
-     * 提取所有声明
-     */
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        JwtClaims claims = verify(token);
+        if (claims != null) {
+            verifiedCache.put(digest, claims);
+        }
+        return claims;
     }
 
     /**
-     * 验证令牌
+     * 验签并转换为不可变声明
      */
-    public boolean validateToken(String token) {
+    private JwtClaims verify(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+            if (claims.getExpiration() == null) {
+                // 缓存条目依赖过期时间，不接受永不过期的令牌
+                log.error("JWT token has no expiration");
+                return null;
+            }
+            Number userId = claims.get(CLAIM_USER_ID, Number.class);
+            String role = claims.get(CLAIM_ROLE, String.class);
+            User.UserRole userRole = null;
+            if (role != null) {
+                userRole = parseRole(role);
+                if (userRole == null) {
+                    log.error("Invalid JWT role claim: {}", role);
+                    return null;
+                }
+            }
+            Number sessionId = claims.get(CLAIM_SESSION_ID, Number.class);
+            return new JwtClaims(
+                    claims.getId() != null ? claims.getId() : LEGACY_TOKEN_ID_PREFIX + digest(token),
+                    claims.getSubject(),
+                    userId != null ? userId.longValue() : null,
+                    userRole,
+                    sessionId != null ? sessionId.longValue() : null,
+                    claims.get(CLAIM_TYPE, String.class),
+                    claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                    claims.getExpiration().toInstant());
         } catch (MalformedJwtException ex) {
             log.error("Invalid JWT token: {}", ex.getMessage());
         } catch (ExpiredJwtException ex) {
             log.error("Expired JWT token: {}", ex.getMessage());
         } catch (UnsupportedJwtException ex) {
             log.error("Unsupported JWT token: {}", ex.getMessage());
+        } catch (SecurityException ex) {
+            log.error("Invalid JWT signature: {}", ex.getMessage());
         } catch (IllegalArgumentException ex) {
             log.error("JWT claims string is empty: {}", ex.getMessage());
         }
-        return false;
+        return null;
+    }
+
+    /**
+     * 解析角色声明，未知角色返回 null
+     */
+    private static User.UserRole parseRole(String role) {
+        for (User.UserRole value : User.UserRole.values()) {
+            if (value.name().equals(role)) {
+                return value;
+            }
+        }
+        return null;
     }
 
     /**
-     * 验证令牌是否属于指定用户
+     * 计算令牌摘要，缓存中不保存令牌原文
      */
-    public boolean validateToken(String token, UserDetails userDetails) {
-        final String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
     }
 
     /**
-     * 检查令牌是否过期
+     * 是否接受旧格式令牌
      */
-    private boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+    public boolean isAcceptLegacyTokens() {
+        return acceptLegacyTokens;
     }
 
     /**
@@ -157,4 +219,26 @@ public class JwtTokenProvider {
     public Long getAccessTokenExpirationInSeconds() {
         return accessTokenExpiration / 1000;
     }
+
+    /**
+     * 缓存条目过期策略：取配置 TTL 与令牌剩余有效期中的较小值
+     */
+    private record ClaimsExpiry(Duration ttl) implements Expiry<String, JwtClaims> {
+
+        @Override
+        public long expireAfterCreate(String key, JwtClaims claims, long currentTime) {
+            long remaining = Duration.between(Instant.now(), claims.expiration()).toNanos();
+            return Math.max(0, Math.min(ttl.toNanos(), remaining));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, JwtClaims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, JwtClaims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -0,0 +1,137 @@
+package icu.nyat.dreamjournalsystem.security;
+
+import icu.nyat.dreamjournalsystem.mapper.UserMapper;
+import icu.nyat.dreamjournalsystem.mapper.UserMapper.LoginInfo;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 最近登录信息写回缓冲
+ * <p>
+ * 登录时只在内存中按用户合并（同一用户多次登录只保留最后一次），由后台线程每隔固定时间
+ * 或积累到一定数量时以单条多行 UPDATE 写入 users 表，登录请求不再同步写热点行。
+ * 应用正常关闭时会写完缓冲中的剩余记录；进程异常退出最多丢失一个刷新周期的登录时间。
+ */
+@Slf4j
+@Component
+public class LastLoginBuffer {
+
+    private final UserMapper userMapper;
+    private final ConcurrentHashMap<Long, LoginInfo> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler;
+
+    @Value("${security.last-login.flush-interval:1s}")
+    private Duration flushInterval;
+
+    @Value("${security.last-login.flush-threshold:500}")
+    private int flushThreshold;
+
+    @Value("${security.last-login.batch-size:500}")
+    private int batchSize;
+
+    public LastLoginBuffer(UserMapper userMapper, MeterRegistry meterRegistry) {
+        this.userMapper = userMapper;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "last-login-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        meterRegistry.gaugeMapSize("auth.last_login.pending", List.of(), pending);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::flushQuietly,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 记录一次登录
+     */
+    public void record(Long userId, String ipAddress) {
+        pending.put(userId, new LoginInfo(userId, LocalDateTime.now(), ipAddress));
+        if (pending.size() >= flushThreshold && flushRequested.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::flushQuietly);
+            } catch (RejectedExecutionException e) {
+                // 关闭过程中写入线程已停止，由当前线程直接写入
+                flushQuietly();
+            }
+        }
+    }
+
+    /**
+     * 写入缓冲中的全部记录
+     *
+     * @return 写入的记录数
+     */
+    public synchronized int flush() {
+        flushRequested.set(false);
+        int total = 0;
+        while (!pending.isEmpty()) {
+            List<LoginInfo> batch = takeBatch();
+            if (batch.isEmpty()) {
+                break;
+            }
+            try {
+                userMapper.batchUpdateLoginInfo(batch);
+                total += batch.size();
+            } catch (RuntimeException e) {
+                // 放回缓冲等待下次重试，期间的新登录记录优先
+                batch.forEach(info -> pending.putIfAbsent(info.userId(), info));
+                throw e;
+            }
+        }
+        return total;
+    }
+
+    private List<LoginInfo> takeBatch() {
+        List<LoginInfo> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+        Iterator<Long> iterator = pending.keySet().iterator();
+        while (iterator.hasNext() && batch.size() < batchSize) {
+            LoginInfo info = pending.remove(iterator.next());
+            if (info != null) {
+                batch.add(info);
+            }
+        }
+        return batch;
+    }
+
+    private void flushQuietly() {
+        try {
+            int written = flush();
+            if (written > 0) {
+                log.debug("已写入最近登录信息 {} 条", written);
+            }
+        } catch (Exception e) {
+            log.error("写入最近登录信息失败，剩余 {} 条等待重试", pending.size(), e);
+        }
+    }
+
+    /**
+     * 正常关闭时停止定时任务并写完剩余记录
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(flushInterval.toMillis() + 5000, TimeUnit.MILLISECONDS);
+        flushQuietly();
+    }
+}
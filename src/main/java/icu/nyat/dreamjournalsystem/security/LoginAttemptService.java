@@ -0,0 +1,79 @@
+package icu.nyat.dreamjournalsystem.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collections;
+
+/**
+ * 登录失败计数（Redis 原子计数器）
+ * 失败次数只保存在 Redis 中并随窗口过期，达到上限后才由调用方把锁定状态写回 MySQL。
+ */
+@Slf4j
+@Service
+public class LoginAttemptService {
+
+    private static final String KEY_PREFIX = "auth:login-fail:";
+
+    /**
+     * INCR 与首次设置过期时间在同一脚本中完成，保证原子性
+     */
+    private static final RedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "local count = redis.call('INCR', KEYS[1]) " +
+            "if count == 1 then redis.call('PEXPIRE', KEYS[1], ARGV[1]) end " +
+            "return count",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${security.login-attempts.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${security.login-attempts.window:30m}")
+    private Duration window;
+
+    @Value("${security.login-attempts.lock-duration:30m}")
+    private Duration lockDuration;
+
+    public LoginAttemptService(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * 记录一次失败
+     *
+     * @return 是否达到上限需要锁定账户
+     */
+    public boolean recordFailure(Long userId) {
+        try {
+            Long count = redisTemplate.execute(INCREMENT_SCRIPT,
+                    Collections.singletonList(KEY_PREFIX + userId),
+                    String.valueOf(window.toMillis()));
+            return count != null && count >= maxAttempts;
+        } catch (Exception e) {
+            // 计数不可用时不影响登录本身
+            log.error("记录登录失败次数失败, userId: {}", userId, e);
+            return false;
+        }
+    }
+
+    /**
+     * 登录成功或锁定后清零
+     */
+    public void reset(Long userId) {
+        try {
+            redisTemplate.delete(KEY_PREFIX + userId);
+        } catch (Exception e) {
+            log.error("清除登录失败次数失败, userId: {}", userId, e);
+        }
+    }
+
+    public Duration getLockDuration() {
+        return lockDuration;
+    }
+}
@@ -0,0 +1,96 @@
+package icu.nyat.dreamjournalsystem.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * 认证主体缓存
+ * 以登录名（用户名或邮箱）和用户ID为键缓存 UserPrincipal，减少每个请求对 users 表的查询。
+ * 密码、状态、角色变更时必须调用 {@link #invalidate(Long)} 使缓存失效。
+ */
+@Slf4j
+@Component
+public class PrincipalCache {
+
+    private static final String CACHE_NAME = "principal";
+    private static final String ID_CACHE_NAME = "principal-id";
+
+    private final Cache<String, UserPrincipal> cache;
+
+    /**
+     * 按用户ID缓存，供携带 uid 声明的访问令牌每次请求校验状态与角色
+     */
+    private final Cache<Long, UserPrincipal> byId;
+
+    public PrincipalCache(MeterRegistry meterRegistry,
+                          @Value("${security.principal-cache.max-size:10000}") long maxSize,
+                          @Value("${security.principal-cache.ttl:300s}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        // 暴露 cache.gets{result=hit|miss}、cache.evictions 等指标
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, ID_CACHE_NAME);
+    }
+
+    /**
+     * 获取主体，未命中时通过 loader 加载（loader 返回 null 时不缓存）
+     */
+    public UserPrincipal get(String loginName, Function<String, UserPrincipal> loader) {
+        return cache.get(loginName, loader);
+    }
+
+    /**
+     * 按用户ID获取主体，未命中时通过 loader 加载（loader 返回 null 时不缓存）
+     */
+    public UserPrincipal getById(Long userId, Function<Long, UserPrincipal> loader) {
+        return byId.get(userId, loader);
+    }
+
+    /**
+     * 使指定用户的全部缓存项失效（同一用户可能以用户名和邮箱两个键存在）
+     * 在事务中调用时，提交后会再失效一次，防止提交前被并发请求以旧数据回填
+     */
+    public void invalidate(Long userId) {
+        evict(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(userId);
+                }
+            });
+        }
+    }
+
+    private void evict(Long userId) {
+        cache.asMap().values().removeIf(principal -> principal.getId().equals(userId));
+        byId.invalidate(userId);
+        log.debug("认证主体缓存已失效, userId: {}", userId);
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+        byId.invalidateAll();
+    }
+}
@@ -0,0 +1,56 @@
+package icu.nyat.dreamjournalsystem.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Redis 令牌吊销存储
+ * 每个吊销令牌一个键（TTL = 令牌剩余有效期），并通过 pub/sub 通知其他节点
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "security.revocation.store", havingValue = "redis", matchIfMissing = true)
+public class RedisTokenRevocationStore implements TokenRevocationStore {
+
+    private static final String KEY_PREFIX = "auth:revoked:";
+    private static final ChannelTopic CHANNEL = new ChannelTopic("auth:revocations");
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    @Override
+    public void revoke(String tokenId, Duration ttl) {
+        redisTemplate.opsForValue().set(KEY_PREFIX + tokenId, "1", ttl);
+        redisTemplate.convertAndSend(CHANNEL.getTopic(), tokenId);
+    }
+
+    @Override
+    public boolean isRevoked(String tokenId) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(KEY_PREFIX + tokenId));
+    }
+
+    @Override
+    public void forEachRevoked(Consumer<String> action) {
+        ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            cursor.forEachRemaining(key -> action.accept(key.substring(KEY_PREFIX.length())));
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        listenerContainer.addMessageListener(
+                (message, pattern) -> listener.accept(new String(message.getBody(), StandardCharsets.UTF_8)),
+                CHANNEL);
+    }
+}
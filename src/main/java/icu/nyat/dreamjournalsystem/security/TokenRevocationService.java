@@ -0,0 +1,118 @@
+package icu.nyat.dreamjournalsystem.security;
+
+import icu.nyat.dreamjournalsystem.util.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * 访问令牌吊销服务
+ * <p>
+ * 吊销记录以 jti 为键保存在 {@link TokenRevocationStore} 中，TTL 等于令牌剩余有效期。
+ * 每个节点维护一份本地布隆过滤器并通过 pub/sub 同步：过滤器判定"一定未吊销"的令牌
+ * （绝大多数请求）无需访问 Redis，只有可能命中时才回查存储。
+ * 布隆过滤器无法删除元素，因此定期从存储重建以清除已过期的记录。
+ */
+@Slf4j
+@Service
+public class TokenRevocationService {
+
+    private final TokenRevocationStore store;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+
+    /**
+     * 重建期间的新过滤器，并发到达的吊销同时写入新旧两份
+     */
+    private volatile BloomFilter rebuilding;
+
+    public TokenRevocationService(TokenRevocationStore store,
+                                  @Value("${security.revocation.expected-insertions:100000}") long expectedInsertions,
+                                  @Value("${security.revocation.fpp:0.001}") double falsePositiveRate) {
+        this.store = store;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedInsertions, falsePositiveRate);
+    }
+
+    @PostConstruct
+    public void init() {
+        store.subscribe(this::remember);
+        try {
+            rebuildFilter();
+        } catch (Exception e) {
+            // 启动时存储不可用不阻塞应用，等待下次定时重建
+            log.warn("加载令牌吊销列表失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 吊销令牌（旧令牌以令牌摘要作为 jti）
+     */
+    public void revoke(JwtClaims claims) {
+        if (claims.tokenId() == null) {
+            return;
+        }
+        Duration ttl = Duration.between(Instant.now(), claims.expiration());
+        if (ttl.isNegative() || ttl.isZero()) {
+            return;
+        }
+        remember(claims.tokenId());
+        store.revoke(claims.tokenId(), ttl);
+        log.debug("令牌已吊销, jti: {}, ttl: {}s", claims.tokenId(), ttl.toSeconds());
+    }
+
+    /**
+     * 令牌是否已吊销
+     * 布隆过滤器未命中直接返回；可能命中时回查存储，存储不可用时按已吊销处理
+     */
+    public boolean isRevoked(JwtClaims claims) {
+        String tokenId = claims.tokenId();
+        if (tokenId == null || !filter.mightContain(tokenId)) {
+            return false;
+        }
+        try {
+            return store.isRevoked(tokenId);
+        } catch (Exception e) {
+            log.error("查询令牌吊销状态失败, jti: {}", tokenId, e);
+            return true;
+        }
+    }
+
+    /**
+     * 定期从存储重建布隆过滤器
+     */
+    @Scheduled(fixedDelayString = "${security.revocation.rebuild-interval:PT10M}",
+            initialDelayString = "${security.revocation.rebuild-interval:PT10M}")
+    public void rebuildFilter() {
+        BloomFilter next = new BloomFilter(expectedInsertions, falsePositiveRate);
+        rebuilding = next;
+        try {
+            store.forEachRevoked(next::put);
+            filter = next;
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    private void remember(String tokenId) {
+        BloomFilter current = filter;
+        current.put(tokenId);
+        BloomFilter next = rebuilding;
+        if (next != null) {
+            next.put(tokenId);
+        }
+        // 重建恰好在两次读取之间完成时，补写到新的过滤器
+        BloomFilter latest = filter;
+        if (latest != current) {
+            latest.put(tokenId);
+        }
+    }
+}
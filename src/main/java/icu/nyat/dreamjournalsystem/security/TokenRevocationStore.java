@@ -0,0 +1,31 @@
+package icu.nyat.dreamjournalsystem.security;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * 令牌吊销存储
+ * 默认使用 Redis（security.revocation.store=redis），单机开发与测试可使用内存实现（memory）
+ */
+public interface TokenRevocationStore {
+
+    /**
+     * 记录吊销的令牌ID，到期后自动清除
+     */
+    void revoke(String tokenId, Duration ttl);
+
+    /**
+     * 令牌ID是否已吊销
+     */
+    boolean isRevoked(String tokenId);
+
+    /**
+     * 遍历当前仍有效的吊销记录（用于重建本地布隆过滤器）
+     */
+    void forEachRevoked(Consumer<String> action);
+
+    /**
+     * 订阅其他节点的吊销通知
+     */
+    void subscribe(Consumer<String> listener);
+}
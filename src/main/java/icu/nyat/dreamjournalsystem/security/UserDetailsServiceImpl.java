@@ -3,14 +3,11 @@ package icu.nyat.dreamjournalsystem.security;
 import icu.nyat.dreamjournalsystem.entity.User;
 import icu.nyat.dreamjournalsystem.mapper.UserMapper;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
-
 /**
  * 用户详情服务实现
  */
@@ -19,27 +16,51 @@ import java.util.Collections;
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     private final UserMapper userMapper;
+    private final PrincipalCache principalCache;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userMapper.findByUsername(username);
-        
-        if (user == null) {
-            user = userMapper.findByEmail(username);
-        }
-        
-        if (user == null) {
+        UserPrincipal principal = principalCache.get(username, this::loadPrincipal);
+
+        if (principal == null) {
             throw new UsernameNotFoundException("用户不存在: " + username);
         }
 
-        if (user.getStatus() != User.UserStatus.ACTIVE) {
+        // 状态随主体一起缓存，每次命中都重新校验
+        if (principal.getStatus() != User.UserStatus.ACTIVE) {
             throw new UsernameNotFoundException("用户账户已被禁用");
         }
 
-        return new org.springframework.security.core.userdetails.User(
-                user.getUsername(),
-                user.getPasswordHash(),
-                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()))
-        );
+        return principal;
+    }
+
+    /**
+     * 按用户ID加载当前主体（携带 uid 声明的访问令牌使用）
+     * 状态、角色以 users 表为准，不信任令牌中的角色声明
+     *
+     * @return 用户不存在或非 ACTIVE 状态时返回 null
+     */
+    public UserPrincipal loadUserById(Long userId) {
+        UserPrincipal principal = principalCache.getById(userId, id -> {
+            User user = userMapper.selectById(id);
+            return user != null ? UserPrincipal.from(user) : null;
+        });
+        if (principal == null || principal.getStatus() != User.UserStatus.ACTIVE) {
+            return null;
+        }
+        return principal;
+    }
+
+    /**
+     * 从数据库加载主体（用户名优先，其次邮箱）
+     */
+    private UserPrincipal loadPrincipal(String loginName) {
+        User user = userMapper.findByUsername(loginName);
+
+        if (user == null) {
+            user = userMapper.findByEmail(loginName);
+        }
+
+        return user != null ? UserPrincipal.from(user) : null;
     }
 }
@@ -0,0 +1,94 @@
+package icu.nyat.dreamjournalsystem.security;
+
+import icu.nyat.dreamjournalsystem.entity.User;
+import icu.nyat.dreamjournalsystem.mapper.UserMapper;
+import icu.nyat.dreamjournalsystem.util.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 已占用用户名/邮箱的布隆过滤器
+ * <p>
+ * 启动后流式读取 users 表预热；mightContain 为 false 时可直接判定"一定可用"而无需查询，
+ * 为 true 时再回查数据库。预热完成前一律按"可能已占用"处理。
+ * 唯一约束始终是最终依据：其他节点新注册的名称不会同步到本节点，只会让可用性接口的提示略有滞后。
+ * users 表排序规则不区分大小写，因此统一转为小写后写入。
+ */
+@Slf4j
+@Component
+public class UserExistenceFilter {
+
+    private static final String USERNAME_PREFIX = "u:";
+    private static final String EMAIL_PREFIX = "e:";
+
+    private final UserMapper userMapper;
+    private final BloomFilter filter;
+
+    private volatile boolean ready;
+
+    public UserExistenceFilter(UserMapper userMapper,
+                               @Value("${security.user-existence.expected-insertions:1000000}") long expectedInsertions,
+                               @Value("${security.user-existence.fpp:0.01}") double falsePositiveRate) {
+        this.userMapper = userMapper;
+        // 每个用户写入用户名和邮箱两项
+        this.filter = new BloomFilter(expectedInsertions * 2, falsePositiveRate);
+    }
+
+    /**
+     * 应用启动完成后预热
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        AtomicLong count = new AtomicLong();
+        try {
+            userMapper.streamUsernamesAndEmails(context -> {
+                User user = context.getResultObject();
+                add(user.getUsername(), user.getEmail());
+                count.incrementAndGet();
+            });
+            ready = true;
+            log.info("用户名/邮箱布隆过滤器预热完成, 用户数: {}, 耗时: {}ms",
+                    count.get(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // 未就绪时所有判断都会回查数据库，不影响正确性
+            log.warn("用户名/邮箱布隆过滤器预热失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 记录新占用的用户名和邮箱
+     */
+    public void add(String username, String email) {
+        if (username != null) {
+            filter.put(USERNAME_PREFIX + normalize(username));
+        }
+        if (email != null) {
+            filter.put(EMAIL_PREFIX + normalize(email));
+        }
+    }
+
+    /**
+     * 用户名是否可能已被占用（false 表示一定可用）
+     */
+    public boolean mightContainUsername(String username) {
+        return !ready || filter.mightContain(USERNAME_PREFIX + normalize(username));
+    }
+
+    /**
+     * 邮箱是否可能已被占用（false 表示一定可用）
+     */
+    public boolean mightContainEmail(String email) {
+        return !ready || filter.mightContain(EMAIL_PREFIX + normalize(email));
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
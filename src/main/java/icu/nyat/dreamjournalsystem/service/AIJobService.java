@@ -0,0 +1,74 @@
+package icu.nyat.dreamjournalsystem.service;
+
+import icu.nyat.dreamjournalsystem.entity.AIJob;
+
+import java.util.List;
+
+/**
+ * AI总结任务队列服务接口
+ * 任务持久化在 ai_jobs 表，各节点按租约领取；租约过期未完成的任务由清扫任务收回后重新排队
+ */
+public interface AIJobService {
+
+    /**
+     * 任务是否在排队或执行中（租约未过期）
+     */
+    boolean isActive(Long dreamId);
+
+    /**
+     * 入队（已有任务时重置为排队并清零重试次数），需在锁定总结记录的同一事务中调用
+     */
+    void enqueue(Long dreamId, int priority);
+
+    /**
+     * 由当前节点直接领取（同步生成使用），需在锁定总结记录的同一事务中调用
+     */
+    Lease acquire(Long dreamId);
+
+    /**
+     * 批量入队（导入使用）
+     */
+    void enqueueAll(List<Long> dreamIds, int priority);
+
+    /**
+     * 领取最多 limit 个可执行的任务，多个节点并发领取时互不重复
+     */
+    List<Lease> claim(int limit);
+
+    /**
+     * 标记任务成功；租约已失效（被收回）时返回 false
+     */
+    boolean complete(Lease lease);
+
+    /**
+     * 标记任务失败：可重试且次数未用尽时按指数退避重新排队，否则进入死信
+     *
+     * @return QUEUED（已安排重试）、DEAD（进入死信）；租约已失效时返回 null
+     */
+    AIJob.JobStatus fail(Lease lease, String error, boolean retryable);
+
+    /**
+     * 归还当前节点已领取但尚未开始执行的任务
+     */
+    void release(List<Long> dreamIds);
+
+    /**
+     * 排队位置：0 表示不在排队中（执行中或已结束），n 表示前面还有 n-1 个任务
+     */
+    int position(Long dreamId);
+
+    /**
+     * 收回过期租约、同步死信任务的总结状态、为无任务的遗留 PENDING 总结重新入队
+     */
+    void sweep();
+
+    /**
+     * 任务租约
+     *
+     * @param dreamId  梦境ID
+     * @param attempt  第几次领取，与节点标识一起作为完成/失败时的栅栏
+     * @param priority 入队优先级
+     */
+    record Lease(Long dreamId, int attempt, int priority) {
+    }
+}
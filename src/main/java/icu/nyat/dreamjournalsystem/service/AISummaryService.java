@@ -1,7 +1,11 @@
 package icu.nyat.dreamjournalsystem.service;
 
+import icu.nyat.dreamjournalsystem.dto.response.AISummaryTicket;
 import icu.nyat.dreamjournalsystem.entity.AISummary;
 import icu.nyat.dreamjournalsystem.entity.Dream;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
 
 /**
  * AI总结服务接口
@@ -9,19 +13,39 @@ import icu.nyat.dreamjournalsystem.entity.Dream;
 public interface AISummaryService {
 
     /**
-     * 异步生成AI总结
+     * 写入持久化任务队列异步生成，由任一节点的AI工作线程池领取执行；
+     * 输入与已有结果相同时直接以缓存结果完成，不入队
+     *
+     * @param force 为 true 时忽略结果缓存，重新调用模型
+     * @return 排队位置与预计完成时间（缓存命中时为 COMPLETED）
+     */
+    AISummaryTicket generateSummaryAsync(Dream dream, boolean force);
+
+    /**
+     * 批量入队（批量导入使用），优先级低于新建、重新生成等交互请求；执行时先查结果缓存
      */
-    void generateSummaryAsync(Dream dream);
+    void enqueueSummaries(List<Long> dreamIds);
 
     /**
      * 仅预先将AI总结重置为PENDING并清空旧结果，供重新生成时前端立即看到最新状态。
      */
 
     /**
-     * 同步生成AI总结
+     * 同步生成AI总结（结果缓存命中时不调用模型）
+     *
+     * @return 任务已在排队或执行中、或本节点没有空闲槽位（已转入任务队列）时返回 null
      */
     AISummary generateSummary(Dream dream);
 
+    /**
+     * 流式生成AI总结，模型输出以 SSE 事件逐段推送，结束后与同步生成一样保存结果；
+     * 任务已在排队或执行中、或本节点没有空闲槽位（转入任务队列）时只推送一个 status 事件，
+     * 结果缓存命中时直接推送 done 事件
+     *
+     * @param force 为 true 时忽略结果缓存，重新调用模型
+     */
+    SseEmitter streamSummary(Dream dream, boolean force);
+
     /**
      * 获取梦境的AI总结
      */
@@ -3,7 +3,6 @@ package icu.nyat.dreamjournalsystem.service;
 import icu.nyat.dreamjournalsystem.dto.request.LoginRequest;
 import icu.nyat.dreamjournalsystem.dto.request.RegisterRequest;
 import icu.nyat.dreamjournalsystem.dto.response.LoginResponse;
-import icu.nyat.dreamjournalsystem.entity.User;
 
 /**
  * 认证服务接口
@@ -13,17 +12,27 @@ public interface AuthService {
     /**
      * 用户注册（注册后自动登录）
      */
-    LoginResponse register(RegisterRequest request, String ipAddress);
+    LoginResponse register(RegisterRequest request, String ipAddress, String userAgent);
+
+    /**
+     * 用户名是否可用
+     */
+    boolean isUsernameAvailable(String username);
+
+    /**
+     * 邮箱是否可用
+     */
+    boolean isEmailAvailable(String email);
 
     /**
      * 用户登录
      */
-    LoginResponse login(LoginRequest request, String ipAddress);
+    LoginResponse login(LoginRequest request, String ipAddress, String userAgent);
 
     /**
-     * 刷新令牌
+     * 刷新令牌（轮换刷新令牌并签发新的访问令牌）
      */
-    String refreshToken(String refreshToken);
+    LoginResponse refreshToken(String refreshToken);
 
     /**
      * 退出登录
@@ -1,10 +1,23 @@
 package icu.nyat.dreamjournalsystem.service;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import icu.nyat.dreamjournalsystem.dto.request.DreamPatchRequest;
 import icu.nyat.dreamjournalsystem.dto.request.DreamRequest;
+import icu.nyat.dreamjournalsystem.dto.response.AISummaryTicket;
+import icu.nyat.dreamjournalsystem.dto.response.CursorPage;
+import icu.nyat.dreamjournalsystem.dto.response.DreamDetailResponse;
+import icu.nyat.dreamjournalsystem.dto.response.DreamImportResult;
+import icu.nyat.dreamjournalsystem.dto.response.DreamListItem;
+import icu.nyat.dreamjournalsystem.dto.response.DreamSearchResult;
 import icu.nyat.dreamjournalsystem.entity.Dream;
+import lombok.Getter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
 import java.time.LocalDate;
+import java.util.Set;
 
 /**
  * 梦境服务接口
@@ -16,23 +29,93 @@ public interface DreamService {
      */
     Dream createDream(Long userId, DreamRequest request);
 
+    /**
+     * 批量导入梦境（逐条解析与校验，分批多行写入，每批一个事务）
+     *
+     * @param reader            NDJSON 或 CSV 输入
+     * @param generateAISummary 是否为导入的梦境在后台逐条生成AI总结
+     */
+    DreamImportResult importDreams(Long userId, Reader reader, ImportFormat format, boolean generateAISummary);
+
+    /**
+     * 导入格式
+     */
+    enum ImportFormat {
+        NDJSON, CSV
+    }
+
+    /**
+     * 按列表顺序流式导出用户的全部梦境及AI总结（分段读取，每段一个短事务），返回导出条数
+     */
+    long exportDreams(Long userId, ExportFormat format, OutputStream out) throws IOException;
+
+    /**
+     * 导出格式
+     */
+    @Getter
+    enum ExportFormat {
+        NDJSON("application/x-ndjson", ".ndjson"),
+        CSV("text/csv", ".csv"),
+        JSON("application/json", ".json");
+
+        private final String mediaType;
+        private final String extension;
+
+        ExportFormat(String mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+    }
+
     /**
      * 获取梦境详情
      */
     Dream getDreamById(Long dreamId, Long userId);
 
+    /**
+     * 获取梦境详情及AI总结（读穿透缓存）
+     */
+    DreamDetailResponse getDreamDetail(Long dreamId, Long userId);
+
     /**
      * 获取梦境列表（分页）
      */
-    IPage<Dream> getDreamsByUserId(Long userId, int page, int size, 
+    IPage<DreamListItem> getDreamsByUserId(Long userId, int page, int size, 
                                    String keyword, LocalDate startDate, LocalDate endDate,
                                    Dream.DreamType dreamType, Boolean isFavorite);
 
+    /**
+     * 获取梦境列表（游标分页）
+     *
+     * @param after     上一页返回的 nextCursor，为空时从第一条开始
+     * @param withTotal 是否额外计算总条数
+     */
+    CursorPage<DreamListItem> getDreamsByCursor(Long userId, String after, int size, boolean withTotal,
+                                                String keyword, LocalDate startDate, LocalDate endDate,
+                                                Dream.DreamType dreamType, Boolean isFavorite);
+
+    /**
+     * 全文搜索梦境（按相关度排序，返回命中片段）
+     */
+    IPage<DreamSearchResult> searchDreams(Long userId, String keyword, int page, int size);
+
+    /**
+     * 即时搜索（内存倒排索引，边输入边搜索）
+     */
+    java.util.List<DreamSearchResult> instantSearch(Long userId, String keyword, int limit);
+
     /**
      * 更新梦境记录
      */
     Dream updateDream(Long dreamId, Long userId, DreamRequest request);
 
+    /**
+     * 部分更新梦境记录：只写入请求中出现的字段，WHERE 中校验所属用户，不预先读取整条记录
+     *
+     * @return 已更新的字段名
+     */
+    Set<String> patchDream(Long dreamId, Long userId, DreamPatchRequest request);
+
     /**
      * 删除梦境记录
      */
@@ -46,10 +129,18 @@ public interface DreamService {
     /**
      * 获取用户收藏的梦境列表
      */
-    java.util.List<Dream> getFavoritesByUserId(Long userId);
+    java.util.List<DreamListItem> getFavoritesByUserId(Long userId);
 
     /**
      * 重新生成AI总结
+     *
+     * @param force 为 true 时忽略结果缓存，重新调用模型
+     * @return 排队位置与预计完成时间
+     */
+    AISummaryTicket regenerateAISummary(Long dreamId, Long userId, boolean force);
+
+    /**
+     * 重新生成AI总结，以 SSE 推送生成过程
      */
-    void regenerateAISummary(Long dreamId, Long userId);
+    SseEmitter streamAISummary(Long dreamId, Long userId, boolean force);
 }
@@ -0,0 +1,44 @@
+package icu.nyat.dreamjournalsystem.service;
+
+import icu.nyat.dreamjournalsystem.dto.response.DreamStatistics;
+import icu.nyat.dreamjournalsystem.entity.Dream;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * 梦境统计服务接口
+ */
+public interface DreamStatisticsService {
+
+    /**
+     * 获取用户梦境统计（读取汇总表，与梦境数量无关）
+     *
+     * @param startDate 每日分布起始日期，为空时取结束日期前 29 天
+     * @param endDate   每日分布结束日期，为空时取今天
+     */
+    DreamStatistics getStatistics(Long userId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * 按梦境变更前后的状态增量更新汇总表，需在梦境写入的同一事务中调用
+     *
+     * @param before 变更前的梦境，新建时为 null
+     * @param after  变更后的梦境，删除时为 null
+     */
+    void recordChange(Dream before, Dream after);
+
+    /**
+     * 批量新建（导入）后合并增量，一条语句更新汇总表
+     */
+    void recordCreated(Long userId, Collection<Dream> dreams);
+
+    /**
+     * 从梦境表重建单个用户的汇总数据（修复增量漂移）
+     */
+    void rebuild(Long userId);
+
+    /**
+     * 重建全部用户的汇总数据
+     */
+    void rebuildAll();
+}
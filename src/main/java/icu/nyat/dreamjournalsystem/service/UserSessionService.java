@@ -0,0 +1,47 @@
+package icu.nyat.dreamjournalsystem.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户会话服务接口（有状态刷新令牌）
+ */
+public interface UserSessionService {
+
+    /**
+     * 创建会话并签发刷新令牌
+     */
+    IssuedSession createSession(Long userId, String deviceInfo, String ipAddress);
+
+    /**
+     * 校验并轮换刷新令牌，旧令牌立即失效
+     */
+    IssuedSession rotate(String refreshToken);
+
+    /**
+     * 删除单个会话
+     */
+    void deleteSession(Long sessionId);
+
+    /**
+     * 删除用户的全部会话（修改密码等场景）
+     */
+    void deleteAllSessions(Long userId);
+
+    /**
+     * 清理已过期会话
+     *
+     * @return 删除的会话数
+     */
+    int purgeExpiredSessions();
+
+    /**
+     * 已签发的会话
+     *
+     * @param sessionId    会话ID
+     * @param userId       用户ID
+     * @param refreshToken 刷新令牌明文（仅在签发时可见）
+     * @param expiresAt    过期时间
+     */
+    record IssuedSession(Long sessionId, Long userId, String refreshToken, LocalDateTime expiresAt) {
+    }
+}
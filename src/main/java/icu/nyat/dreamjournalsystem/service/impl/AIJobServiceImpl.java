@@ -0,0 +1,209 @@
+package icu.nyat.dreamjournalsystem.service.impl;
+
+import icu.nyat.dreamjournalsystem.cache.DreamDetailCache;
+import icu.nyat.dreamjournalsystem.entity.AIJob;
+import icu.nyat.dreamjournalsystem.mapper.AIJobMapper;
+import icu.nyat.dreamjournalsystem.service.AIJobService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * AI总结任务队列服务实现
+ * 领取使用 SELECT ... FOR UPDATE SKIP LOCKED，多个节点并发领取时各自拿到不同的行；
+ * 完成、失败只在仍持有该次租约（节点标识 + 领取次数）时生效，被收回的任务不会被覆盖。
+ */
+@Slf4j
+@Service
+public class AIJobServiceImpl implements AIJobService {
+
+    /**
+     * 错误信息截断长度
+     */
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final AIJobMapper aiJobMapper;
+    private final DreamDetailCache dreamDetailCache;
+
+    /**
+     * 当前节点标识（主机名 + 进程随机后缀），重启后旧租约不会被误认为仍由本节点持有
+     */
+    private final String owner;
+
+    private final long leaseSeconds;
+    private final int maxAttempts;
+    private final Duration backoffInitial;
+    private final Duration backoffMax;
+    private final long staleSeconds;
+    private final int sweepBatchSize;
+
+    private final Counter retriedCounter;
+    private final Counter deadCounter;
+    private final Counter reclaimedCounter;
+
+    public AIJobServiceImpl(AIJobMapper aiJobMapper,
+                            DreamDetailCache dreamDetailCache,
+                            MeterRegistry meterRegistry,
+                            @Value("${ai.jobs.lease:3m}") Duration lease,
+                            @Value("${ai.jobs.max-attempts:5}") int maxAttempts,
+                            @Value("${ai.jobs.backoff-initial:10s}") Duration backoffInitial,
+                            @Value("${ai.jobs.backoff-max:10m}") Duration backoffMax,
+                            @Value("${ai.jobs.stale-pending:10m}") Duration stalePending,
+                            @Value("${ai.jobs.sweep-batch-size:500}") int sweepBatchSize) {
+        this.aiJobMapper = aiJobMapper;
+        this.dreamDetailCache = dreamDetailCache;
+        this.owner = nodeName() + ":" + UUID.randomUUID().toString().substring(0, 8);
+        this.leaseSeconds = lease.toSeconds();
+        this.maxAttempts = maxAttempts;
+        this.backoffInitial = backoffInitial;
+        this.backoffMax = backoffMax;
+        this.staleSeconds = stalePending.toSeconds();
+        this.sweepBatchSize = sweepBatchSize;
+        this.retriedCounter = meterRegistry.counter("ai.jobs.transitions", "to", "retry");
+        this.deadCounter = meterRegistry.counter("ai.jobs.transitions", "to", "dead");
+        this.reclaimedCounter = meterRegistry.counter("ai.jobs.transitions", "to", "reclaimed");
+    }
+
+    @Override
+    public boolean isActive(Long dreamId) {
+        return aiJobMapper.countActive(dreamId) > 0;
+    }
+
+    @Override
+    public void enqueue(Long dreamId, int priority) {
+        aiJobMapper.upsert(dreamId, AIJob.JobStatus.QUEUED, priority, 0, null, 0);
+    }
+
+    @Override
+    public Lease acquire(Long dreamId) {
+        aiJobMapper.upsert(dreamId, AIJob.JobStatus.RUNNING, AIJob.PRIORITY_INTERACTIVE, 1, owner, leaseSeconds);
+        return new Lease(dreamId, 1, AIJob.PRIORITY_INTERACTIVE);
+    }
+
+    @Override
+    public void enqueueAll(List<Long> dreamIds, int priority) {
+        if (!dreamIds.isEmpty()) {
+            aiJobMapper.enqueueAll(dreamIds, priority);
+        }
+    }
+
+    /**
+     * 独立事务：创建梦境后在外层事务的 afterCommit 中领取时，仍绑定着已提交事务的连接，
+     * 加入其中的锁与更新不会提交，会阻塞工作线程对同一任务的后续更新
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public List<Lease> claim(int limit) {
+        List<AIJob> jobs = aiJobMapper.selectClaimable(limit);
+        if (jobs.isEmpty()) {
+            return List.of();
+        }
+        aiJobMapper.markRunning(jobs.stream().map(AIJob::getId).toList(), owner, leaseSeconds);
+        return jobs.stream()
+                .map(job -> new Lease(job.getDreamId(), job.getAttempts() + 1, job.getPriority()))
+                .toList();
+    }
+
+    @Override
+    public boolean complete(Lease lease) {
+        if (aiJobMapper.complete(lease.dreamId(), owner, lease.attempt()) == 0) {
+            log.warn("AI任务租约已失效, dreamId: {}, attempt: {}", lease.dreamId(), lease.attempt());
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public AIJob.JobStatus fail(Lease lease, String error, boolean retryable) {
+        String message = truncate(error);
+        if (retryable && lease.attempt() < maxAttempts) {
+            long delay = backoffSeconds(lease.attempt());
+            if (aiJobMapper.retry(lease.dreamId(), owner, lease.attempt(), delay, message) > 0) {
+                retriedCounter.increment();
+                log.info("AI任务第 {} 次失败, dreamId: {}, {}s 后重试", lease.attempt(), lease.dreamId(), delay);
+                return AIJob.JobStatus.QUEUED;
+            }
+        } else if (aiJobMapper.bury(lease.dreamId(), owner, lease.attempt(), message) > 0) {
+            deadCounter.increment();
+            log.warn("AI任务进入死信, dreamId: {}, attempt: {}, error: {}", lease.dreamId(), lease.attempt(), message);
+            return AIJob.JobStatus.DEAD;
+        }
+        log.warn("AI任务租约已失效, dreamId: {}, attempt: {}", lease.dreamId(), lease.attempt());
+        return null;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void release(List<Long> dreamIds) {
+        if (!dreamIds.isEmpty()) {
+            int released = aiJobMapper.release(dreamIds, owner);
+            log.info("归还未执行的AI任务 {} 个", released);
+        }
+    }
+
+    @Override
+    public int position(Long dreamId) {
+        return aiJobMapper.countAhead(dreamId);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${ai.jobs.sweep-interval:PT1M}")
+    public void sweep() {
+        try {
+            int reclaimed = aiJobMapper.reclaimExpired(maxAttempts);
+            if (reclaimed > 0) {
+                reclaimedCounter.increment(reclaimed);
+                log.warn("收回租约过期的AI任务 {} 个", reclaimed);
+            }
+
+            List<Long> dead = aiJobMapper.selectDeadWithOpenSummary(sweepBatchSize);
+            if (!dead.isEmpty()) {
+                aiJobMapper.failSummaries(dead);
+                dead.forEach(dreamDetailCache::invalidate);
+                log.info("死信任务对应的AI总结标记为失败 {} 条", dead.size());
+            }
+
+            int requeued = aiJobMapper.requeueOrphans(staleSeconds);
+            if (requeued > 0) {
+                log.info("为无任务的遗留 PENDING 总结重新入队 {} 条", requeued);
+            }
+        } catch (Exception e) {
+            log.error("清扫AI任务失败", e);
+        }
+    }
+
+    /**
+     * 指数退避：initial * 2^(attempt-1)，不超过上限；在后一半区间内随机，避免同时失败的任务同时重试
+     */
+    private long backoffSeconds(int attempt) {
+        long base = backoffInitial.toSeconds() << Math.min(attempt - 1, 20);
+        long capped = Math.max(1, Math.min(base, backoffMax.toSeconds()));
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped - capped / 2 + 1);
+    }
+
+    private static String truncate(String error) {
+        if (error == null || error.length() <= MAX_ERROR_LENGTH) {
+            return error;
+        }
+        return error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private static String nodeName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "node";
+        }
+    }
+}
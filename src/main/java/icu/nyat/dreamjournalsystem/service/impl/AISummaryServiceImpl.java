@@ -1,37 +1,54 @@
 package icu.nyat.dreamjournalsystem.service.impl;
 
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.theokanning.openai.OpenAiApi;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.theokanning.openai.OpenAiHttpException;
+import com.theokanning.openai.completion.chat.ChatCompletionChunk;
 import com.theokanning.openai.completion.chat.ChatCompletionRequest;
+import com.theokanning.openai.completion.chat.ChatCompletionResult;
 import com.theokanning.openai.completion.chat.ChatMessage;
-import com.theokanning.openai.service.OpenAiService;
+import icu.nyat.dreamjournalsystem.ai.AISummaryExecutor;
+import icu.nyat.dreamjournalsystem.ai.JsonFieldStreamParser;
+import icu.nyat.dreamjournalsystem.ai.OpenAiClient;
+import icu.nyat.dreamjournalsystem.ai.OpenAiProperties;
+import icu.nyat.dreamjournalsystem.cache.AIResultCache;
+import icu.nyat.dreamjournalsystem.cache.DreamDetailCache;
+import icu.nyat.dreamjournalsystem.dto.response.AISummaryTicket;
+import icu.nyat.dreamjournalsystem.entity.AIJob;
 import icu.nyat.dreamjournalsystem.entity.AISummary;
 import icu.nyat.dreamjournalsystem.entity.Dream;
 import icu.nyat.dreamjournalsystem.mapper.AISummaryMapper;
+import icu.nyat.dreamjournalsystem.mapper.DreamMapper;
+import icu.nyat.dreamjournalsystem.service.AIJobService;
 import icu.nyat.dreamjournalsystem.service.AISummaryService;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import okhttp3.OkHttpClient;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import retrofit2.Retrofit;
-import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
-import retrofit2.converter.jackson.JacksonConverterFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.math.BigDecimal;
-import java.time.Duration;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
-import static com.theokanning.openai.service.OpenAiService.*;
-
 /**
  * AI总结服务实现
  */
@@ -40,7 +57,13 @@ import static com.theokanning.openai.service.OpenAiService.*;
 public class AISummaryServiceImpl implements AISummaryService {
 
     private final AISummaryMapper aiSummaryMapper;
+    private final DreamMapper dreamMapper;
     private final ObjectMapper objectMapper;
+    private final DreamDetailCache dreamDetailCache;
+    private final OpenAiClient openAiClient;
+    private final AISummaryExecutor aiSummaryExecutor;
+    private final AIJobService aiJobService;
+    private final AIResultCache aiResultCache;
 
     /**
      * Self-reference to enable transactional proxy for internal calls.
@@ -52,37 +75,53 @@ public class AISummaryServiceImpl implements AISummaryService {
         this.self = self;
     }
 
-    public AISummaryServiceImpl(AISummaryMapper aiSummaryMapper, ObjectMapper objectMapper) {
+    /**
+     * AI 总结生成耗时（含模型调用与解析），按结果区分
+     */
+    private final Timer completedTimer;
+    private final Timer failedTimer;
+
+    public AISummaryServiceImpl(AISummaryMapper aiSummaryMapper, DreamMapper dreamMapper, ObjectMapper objectMapper,
+                                DreamDetailCache dreamDetailCache, OpenAiClient openAiClient,
+                                AISummaryExecutor aiSummaryExecutor, AIJobService aiJobService,
+                                AIResultCache aiResultCache, MeterRegistry meterRegistry) {
         this.aiSummaryMapper = aiSummaryMapper;
+        this.dreamMapper = dreamMapper;
         this.objectMapper = objectMapper;
+        this.dreamDetailCache = dreamDetailCache;
+        this.openAiClient = openAiClient;
+        this.aiSummaryExecutor = aiSummaryExecutor;
+        this.aiJobService = aiJobService;
+        this.aiResultCache = aiResultCache;
+        this.completedTimer = meterRegistry.timer("ai.summary.generation", "result", "completed");
+        this.failedTimer = meterRegistry.timer("ai.summary.generation", "result", "failed");
     }
 
-    @Value("${openai.api-key}")
-    private String apiKey;
-
-    @Value("${openai.model}")
-    private String model;
-
-    @Value("${openai.base-url}")
-    private String baseUrl;
-
-    @Value("${openai.timeout}")
-    private Long timeout;
+    /**
+     * 批量入队时单条 INSERT 的最大行数
+     */
+    private static final int ENQUEUE_BATCH_SIZE = 1000;
 
-    @Value("${openai.max-tokens}")
-    private Integer maxTokens;
+    private static final String PROMPT_VERSION = "1.0.1";
 
-    @Value("${openai.temperature}")
-    private Double temperature;
+    /**
+     * 流式响应在模型调用总超时之外保留的时间，用于保存结果并发送最后的事件
+     */
+    private static final long STREAM_GRACE_MILLIS = 10_000;
 
-    private static final String PROMPT_VERSION = "1.0.1";
+    /**
+     * 解析模型输出的 JSON（snake_case），配置完成后线程安全，全局共享
+     */
+    private static final ObjectMapper RESPONSE_MAPPER = new ObjectMapper()
+            .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
     /**
      * 将AI总结重置为PENDING并清空旧字段，供生成前复用。
      */
     private void resetSummaryFieldsToPending(AISummary summary) {
         summary.setStatus(AISummary.SummaryStatus.PENDING);
-        summary.setAiModel(model);
+        summary.setAiModel(openAiClient.getProperties().getModel());
         summary.setPromptVersion(PROMPT_VERSION);
         summary.setUpdatedAt(LocalDateTime.now());
         summary.setErrorMessage(null);
@@ -95,50 +134,94 @@ public class AISummaryServiceImpl implements AISummaryService {
         summary.setTokensUsed(null);
         summary.setGenerationTimeMs(null);
         summary.setConfidenceScore(null);
+        summary.setContentDigest(null);
+        summary.setCacheHit(false);
     }
 
+    /**
+     * 将总结重置为PENDING并写入任务队列；总结记录的行锁保证同一梦境的入队互斥。
+     * 只看任务是否有效而不看总结状态：节点在生成途中宕机留下的 PENDING 可以直接重新生成。
+     *
+     * @param priority 入队优先级；为 null 时由当前节点直接领取（同步生成）
+     * @return 任务已在排队或执行中时返回 null
+     */
     @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public AISummary markPending(Dream dream) {
-        AISummary summary = aiSummaryMapper.findByDreamIdForUpdate(dream.getId());
-        boolean isNew = (summary == null);
+    public Pending markPending(Dream dream, Integer priority) {
+        AISummary summary = lockSummary(dream);
+        if (summary == null) {
+            return null;
+        }
+        resetSummaryFieldsToPending(summary);
+        aiSummaryMapper.updateAllFields(summary);
 
-        if (isNew) {
-            summary = new AISummary();
-            summary.setDreamId(dream.getId());
-            summary.setCreatedAt(LocalDateTime.now());
+        AIJobService.Lease lease = null;
+        if (priority == null) {
+            lease = aiJobService.acquire(dream.getId());
         } else {
-            if (summary.getStatus() == AISummary.SummaryStatus.PENDING) {
-                log.info("AI总结正在生成中, dreamId: {}, 跳过重复请求", dream.getId());
-                return null;
-            }
+            aiJobService.enqueue(dream.getId(), priority);
         }
 
+        // 详情中的AI状态随之变为 PENDING
+        dreamDetailCache.invalidate(dream.getId());
+        return new Pending(summary, lease);
+    }
+
+    /**
+     * 以缓存中的结果直接完成总结，不入队
+     *
+     * @return 任务已在排队或执行中时返回 null
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public AISummary completeFromCache(Dream dream, AISummary cached, String digest, long startTime) {
+        AISummary summary = lockSummary(dream);
+        if (summary == null) {
+            return null;
+        }
         resetSummaryFieldsToPending(summary);
+        applyCached(summary, cached, digest, startTime);
+        aiSummaryMapper.updateAllFields(summary);
+        dreamDetailCache.invalidate(dream.getId());
+        return summary;
+    }
 
-        if (isNew) {
+    /**
+     * 锁定梦境的总结记录，不存在时以 PENDING 创建；任务已在排队或执行中时返回 null。需在事务中调用
+     */
+    private AISummary lockSummary(Dream dream) {
+        AISummary summary = aiSummaryMapper.findByDreamIdForUpdate(dream.getId());
+        if (summary == null) {
+            summary = new AISummary();
+            summary.setDreamId(dream.getId());
+            summary.setCreatedAt(LocalDateTime.now());
+            resetSummaryFieldsToPending(summary);
             try {
                 aiSummaryMapper.insert(summary);
+                return summary;
             } catch (org.springframework.dao.DuplicateKeyException e) {
                 log.warn("并发创建AI总结记录, dreamId: {}, 重新获取现有记录", dream.getId());
                 summary = aiSummaryMapper.findByDreamIdForUpdate(dream.getId());
                 if (summary == null) {
                     throw new RuntimeException("无法获取AI总结记录", e);
                 }
-                if (summary.getStatus() == AISummary.SummaryStatus.PENDING) {
-                    log.info("AI总结正在由其他线程生成, dreamId: {}", dream.getId());
-                    return null;
-                }
             }
-        } else {
-            aiSummaryMapper.updateAllFields(summary);
         }
-
+        if (aiJobService.isActive(dream.getId())) {
+            log.info("AI总结正在生成中, dreamId: {}, 跳过重复请求", dream.getId());
+            return null;
+        }
         return summary;
     }
 
+    /**
+     * 已重置为 PENDING 的总结；lease 仅在当前节点直接领取时非空
+     */
+    record Pending(AISummary summary, AIJobService.Lease lease) {
+    }
+
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void saveSummary(AISummary summary) {
         aiSummaryMapper.updateAllFields(summary);
+        dreamDetailCache.invalidate(summary.getDreamId());
     }
 
         private static final String SYSTEM_PROMPT =
@@ -182,118 +265,383 @@ public class AISummaryServiceImpl implements AISummaryService {
                         "请按照指定的JSON格式输出分析结果。\n";
 
     @Override
-    @Async
-    public void generateSummaryAsync(Dream dream) {
+    public AISummaryTicket generateSummaryAsync(Dream dream, boolean force) {
+        if (!force && reuseCached(dream, prompt(dream)) != null) {
+            return new AISummaryTicket(AISummary.SummaryStatus.COMPLETED, 0, 0);
+        }
+        return enqueue(dream);
+    }
+
+    /**
+     * 写入任务队列（交互优先级）并返回排队情况
+     */
+    private AISummaryTicket enqueue(Dream dream) {
+        // 先用短事务将状态重置为PENDING并写入任务队列，前端立即看到排队状态
+        Pending pending = self.markPending(dream, AIJob.PRIORITY_INTERACTIVE);
         try {
-            generateSummary(dream);
+            // 本节点有空闲线程时立即领取，不必等下一次轮询
+            dispatch();
         } catch (Exception e) {
-            log.error("异步生成AI总结失败, dreamId: {}", dream.getId(), e);
-            // generateSummary 内部已经处理了失败状态的更新，这里不需要再次处理
+            log.warn("领取AI任务失败, 等待下一次轮询: {}", e.getMessage());
         }
+
+        return ticket(dream, pending != null
+                ? AISummary.SummaryStatus.PENDING
+                : aiSummaryMapper.selectStatus(dream.getId()));
+    }
+
+    private AISummaryTicket ticket(Dream dream, AISummary.SummaryStatus status) {
+        AISummaryExecutor.Admission admission = aiSummaryExecutor.estimate(aiJobService.position(dream.getId()));
+        return new AISummaryTicket(status, admission.position(), admission.estimatedSeconds());
     }
 
     @Override
-    public AISummary generateSummary(Dream dream) {
-        long startTime = System.currentTimeMillis();
+    @Transactional
+    public void enqueueSummaries(List<Long> dreamIds) {
+        String model = openAiClient.getProperties().getModel();
+        for (int from = 0; from < dreamIds.size(); from += ENQUEUE_BATCH_SIZE) {
+            List<Long> batch = dreamIds.subList(from, Math.min(from + ENQUEUE_BATCH_SIZE, dreamIds.size()));
+            aiSummaryMapper.upsertPending(batch, model, PROMPT_VERSION);
+            aiJobService.enqueueAll(batch, AIJob.PRIORITY_BULK);
+        }
+        log.info("AI总结批量入队 {} 条", dreamIds.size());
+    }
 
-        // 先用短事务将状态重置为PENDING并持久化，避免长事务持锁
-        AISummary summary = self.markPending(dream);
-        if (summary == null) {
-            return null;
+    /**
+     * 定期按空闲线程数领取任务；其他节点已锁定的任务会被跳过
+     */
+    @Scheduled(fixedDelayString = "${ai.jobs.poll-interval:PT1S}")
+    public void pollJobs() {
+        try {
+            dispatch();
+        } catch (Exception e) {
+            log.error("领取AI任务失败", e);
         }
+    }
 
+    private synchronized void dispatch() {
+        int slots = aiSummaryExecutor.availableSlots();
+        if (slots == 0) {
+            return;
+        }
+        for (AIJobService.Lease lease : aiJobService.claim(slots)) {
+            try {
+                aiSummaryExecutor.submit(lease.dreamId(), () -> runJob(lease));
+            } catch (RejectedExecutionException e) {
+                aiJobService.release(List.of(lease.dreamId()));
+            }
+        }
+    }
+
+    /**
+     * 关闭时归还已领取但未开始执行的任务，其他节点或重启后可立即领取
+     * 正在执行的任务被中断后按暂时性错误重试
+     */
+    @PreDestroy
+    public void releaseQueued() {
+        List<Long> queued = aiSummaryExecutor.shutdown();
         try {
-            // 构建Prompt
-            String userPrompt = String.format(USER_PROMPT_TEMPLATE,
-                    dream.getTitle(),
-                    dream.getDreamDate(),
-                    dream.getContent(),
-                    dream.getSleepQuality() != null ? dream.getSleepQuality().name() : "未知",
-                    dream.getMoodBeforeSleep() != null ? dream.getMoodBeforeSleep().name() : "未知",
-                    dream.getMoodAfterWake() != null ? dream.getMoodAfterWake().name() : "未知",
-                    dream.getDreamType() != null ? dream.getDreamType().name() : "NORMAL",
-                    dream.getVividness() != null ? dream.getVividness() : "未知"
-            );
-
-            // 调用OpenAI API (支持自定义base URL，如DeepSeek)
-            ObjectMapper mapper = defaultObjectMapper();
-            OkHttpClient client = defaultClient(apiKey, Duration.ofMillis(timeout))
-                    .newBuilder()
-                    .build();
-            Retrofit retrofit = new Retrofit.Builder()
-                    .baseUrl(baseUrl)
-                    .client(client)
-                    .addConverterFactory(JacksonConverterFactory.create(mapper))
-                    .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
-                    .build();
-            OpenAiApi api = retrofit.create(OpenAiApi.class);
-            OpenAiService openAiService = new OpenAiService(api);
-            
-                ChatCompletionRequest request = ChatCompletionRequest.builder()
-                    .model(model)
-                    .messages(Arrays.asList(
-                        new ChatMessage("system", SYSTEM_PROMPT),
-                        new ChatMessage("user", userPrompt)
-                    ))
-                    .temperature(temperature)
-                    .maxTokens(maxTokens)
-                    .build();
-
-                com.theokanning.openai.completion.chat.ChatCompletionResult response = openAiService.createChatCompletion(request);
-            String content = response.getChoices().get(0).getMessage().getContent();
-            
-            // 清理可能存在的 markdown 代码块标记
-            content = cleanJsonContent(content);
-            
-            log.debug("AI返回内容(清理后): {}", content);
-            
-            // 使用配置了 snake_case 的 ObjectMapper 解析响应
-            ObjectMapper snakeCaseMapper = new ObjectMapper();
-            snakeCaseMapper.setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
-            snakeCaseMapper.configure(com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-            AISummaryResponse aiResponse = snakeCaseMapper.readValue(content, AISummaryResponse.class);
-            
-            log.info("解析AI响应: summary={}, keywords={}, emotionAnalysis={}, symbolAnalysis={}",
-                    aiResponse.getSummary() != null ? "有" : "无",
-                    aiResponse.getKeywords() != null ? "有" : "无", 
-                    aiResponse.getEmotionAnalysis() != null ? "有" : "无",
-                    aiResponse.getSymbolAnalysis() != null ? "有" : "无");
-            
-            // 更新总结记录
-            summary.setSummary(aiResponse.getSummary());
-            summary.setKeywords(convertKeywords(aiResponse.getKeywords()));
-            summary.setEmotionAnalysis(convertEmotionAnalysis(aiResponse.getEmotionAnalysis()));
-            summary.setSymbolAnalysis(convertSymbolAnalysis(aiResponse.getSymbolAnalysis()));
-            summary.setPsychologicalInsight(aiResponse.getPsychologicalInsight());
-            summary.setAdvice(aiResponse.getAdvice());
-            summary.setStatus(AISummary.SummaryStatus.COMPLETED);
-            summary.setTokensUsed(response.getUsage() != null ? (int) response.getUsage().getTotalTokens() : null);
-            summary.setGenerationTimeMs((int) (System.currentTimeMillis() - startTime));
-            summary.setConfidenceScore(new BigDecimal("0.85")); // 默认置信度
-            summary.setErrorMessage(null); // 清除之前的错误信息
-            summary.setUpdatedAt(LocalDateTime.now());
-            
-            log.info("准备更新AI总结, id={}, status={}", summary.getId(), summary.getStatus());
-            
-            self.saveSummary(summary);
-            
-            log.info("AI总结生成成功, dreamId: {}, 耗时: {}ms", dream.getId(), summary.getGenerationTimeMs());
-            
-            return summary;
+            aiJobService.release(queued);
+        } catch (Exception e) {
+            log.warn("关闭时归还AI任务失败, {} 个任务将在租约过期后被收回: {}", queued.size(), e.getMessage());
+        }
+    }
 
+    /**
+     * 工作线程中执行：重新读取梦境，排队期间被编辑则按最新内容生成
+     */
+    private void runJob(AIJobService.Lease lease) {
+        Dream dream = dreamMapper.selectById(lease.dreamId());
+        AISummary summary = dream != null ? aiSummaryMapper.findByDreamId(lease.dreamId()) : null;
+        if (summary == null) {
+            // 排队期间梦境被删除，总结与任务随之级联删除
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        try {
+            Prompt prompt = prompt(dream);
+            // 交互请求入队前已查过缓存（或要求强制重新生成），只有批量任务在执行时查缓存
+            AISummary cached = lease.priority() == AIJob.PRIORITY_BULK ? lookup(prompt) : null;
+            if (cached != null) {
+                applyCached(summary, cached, prompt.digest(), startTime);
+                self.saveSummary(summary);
+            } else {
+                generate(dream, summary, prompt, startTime);
+            }
+            aiJobService.complete(lease);
         } catch (Exception e) {
+            handleFailure(lease, dream, summary, e, startTime);
+        }
+    }
+
+    /**
+     * 按错误类型安排重试或进入死信，并同步总结状态
+     *
+     * @return DEFERRED（已安排重试）、FAILED（不再重试）；租约已被收回时返回 null，由新的持有者负责更新总结
+     */
+    private AISummary.SummaryStatus handleFailure(AIJobService.Lease lease, Dream dream, AISummary summary,
+                                                  Exception e, long startTime) {
+        AIJob.JobStatus next = aiJobService.fail(lease, e.getMessage(), isRetryable(e));
+        if (next == AIJob.JobStatus.QUEUED) {
+            log.warn("AI总结生成失败, dreamId: {}, 稍后重试: {}", dream.getId(), e.getMessage());
+            markFailed(summary, AISummary.SummaryStatus.DEFERRED, e, startTime);
+            return AISummary.SummaryStatus.DEFERRED;
+        }
+        if (next == AIJob.JobStatus.DEAD) {
             log.error("AI总结生成失败, dreamId: {}", dream.getId(), e);
-            
-            summary.setStatus(AISummary.SummaryStatus.FAILED);
-            summary.setErrorMessage(e.getMessage());
-            summary.setGenerationTimeMs((int) (System.currentTimeMillis() - startTime));
-            summary.setUpdatedAt(LocalDateTime.now());
-            self.saveSummary(summary);
-            
-            throw new RuntimeException("AI总结生成失败: " + e.getMessage(), e);
+            markFailed(summary, AISummary.SummaryStatus.FAILED, e, startTime);
+            return AISummary.SummaryStatus.FAILED;
+        }
+        return null;
+    }
+
+    @Override
+    public AISummary generateSummary(Dream dream) {
+        Prompt prompt = prompt(dream);
+        AISummary cached = reuseCached(dream, prompt);
+        if (cached != null) {
+            return cached;
+        }
+
+        // 与池中任务共用槽位，没有空闲槽位时转入任务队列
+        if (!aiSummaryExecutor.tryReserve()) {
+            enqueue(dream);
+            return null;
+        }
+        try {
+            // 先用短事务将状态重置为PENDING并由当前节点领取任务，避免长事务持锁
+            Pending pending = self.markPending(dream, null);
+            if (pending == null) {
+                return null;
+            }
+
+            long startTime = System.currentTimeMillis();
+            try {
+                AISummary summary = generate(dream, pending.summary(), prompt, startTime);
+                aiJobService.complete(pending.lease());
+                return summary;
+            } catch (Exception e) {
+                log.error("AI总结生成失败, dreamId: {}", dream.getId(), e);
+                aiJobService.fail(pending.lease(), e.getMessage(), false);
+                markFailed(pending.summary(), AISummary.SummaryStatus.FAILED, e, startTime);
+                throw new RuntimeException("AI总结生成失败: " + e.getMessage(), e);
+            }
+        } finally {
+            aiSummaryExecutor.release();
         }
     }
 
+    @Override
+    public SseEmitter streamSummary(Dream dream, boolean force) {
+        SseEmitter emitter = new SseEmitter(openAiClient.getProperties().getTimeout() + STREAM_GRACE_MILLIS);
+        Prompt prompt = prompt(dream);
+        AISummary cached = force ? null : reuseCached(dream, prompt);
+        if (cached != null) {
+            sendEvent(emitter, "done", cached);
+            emitter.complete();
+            return emitter;
+        }
+
+        // 与池中任务共用槽位：没有空闲槽位时转入任务队列，返回排队情况后由客户端改为轮询
+        if (!aiSummaryExecutor.tryReserve()) {
+            sendEvent(emitter, "status", enqueue(dream));
+            emitter.complete();
+            return emitter;
+        }
+
+        // 与同步生成相同：短事务重置为PENDING并由当前节点直接领取任务
+        Pending pending;
+        try {
+            pending = self.markPending(dream, null);
+        } catch (RuntimeException e) {
+            aiSummaryExecutor.release();
+            throw e;
+        }
+        if (pending == null) {
+            aiSummaryExecutor.release();
+            // 任务已在排队或由其他请求执行，无法转发其输出，返回排队情况后由客户端改为轮询
+            sendEvent(emitter, "status", ticket(dream, aiSummaryMapper.selectStatus(dream.getId())));
+            emitter.complete();
+            return emitter;
+        }
+        // 槽位由 SummaryStream 在生成结束时归还
+        new SummaryStream(dream, prompt, pending, emitter).start();
+        return emitter;
+    }
+
+    /**
+     * 记录失败：DEFERRED 表示已安排重试，FAILED 表示不再重试
+     */
+    private void markFailed(AISummary summary, AISummary.SummaryStatus status, Exception e, long startTime) {
+        summary.setStatus(status);
+        summary.setErrorMessage(e.getMessage());
+        summary.setGenerationTimeMs((int) (System.currentTimeMillis() - startTime));
+        failedTimer.record(summary.getGenerationTimeMs(), TimeUnit.MILLISECONDS);
+        summary.setUpdatedAt(LocalDateTime.now());
+        self.saveSummary(summary);
+    }
+
+    /**
+     * 4xx（除超时与限流）是请求本身的问题，重试无益；其余（5xx、网络超时、连接失败、
+     * 模型输出不是合法 JSON）视为暂时性错误
+     */
+    private static boolean isRetryable(Exception e) {
+        if (e instanceof OpenAiHttpException http) {
+            return http.statusCode == 408 || http.statusCode == 429 || http.statusCode >= 500;
+        }
+        return true;
+    }
+
+    /**
+     * 调用模型生成并保存为 COMPLETED；失败时抛出异常，由调用方决定重试或标记失败
+     */
+    private AISummary generate(Dream dream, AISummary summary, Prompt prompt, long startTime) throws Exception {
+        // 调用OpenAI API (支持自定义base URL，如DeepSeek)，复用共享客户端与连接池
+        ChatCompletionResult response = openAiClient.createChatCompletion(prompt.request());
+        String content = response.getChoices().get(0).getMessage().getContent();
+        Integer tokensUsed = response.getUsage() != null ? (int) response.getUsage().getTotalTokens() : null;
+        return applyResponse(dream, summary, prompt.digest(), content, tokensUsed, startTime);
+    }
+
+    /**
+     * 构建请求，并对实际发送的输入（用户提示词、模型、温度）与提示词版本计算摘要作为结果缓存键
+     */
+    private Prompt prompt(Dream dream) {
+        // 构建Prompt
+        String userPrompt = String.format(USER_PROMPT_TEMPLATE,
+                dream.getTitle(),
+                dream.getDreamDate(),
+                dream.getContent(),
+                dream.getSleepQuality() != null ? dream.getSleepQuality().name() : "未知",
+                dream.getMoodBeforeSleep() != null ? dream.getMoodBeforeSleep().name() : "未知",
+                dream.getMoodAfterWake() != null ? dream.getMoodAfterWake().name() : "未知",
+                dream.getDreamType() != null ? dream.getDreamType().name() : "NORMAL",
+                dream.getVividness() != null ? dream.getVividness() : "未知"
+        );
+
+        OpenAiProperties properties = openAiClient.getProperties();
+        ChatCompletionRequest request = ChatCompletionRequest.builder()
+                .model(properties.getModel())
+                .messages(Arrays.asList(
+                    new ChatMessage("system", SYSTEM_PROMPT),
+                    new ChatMessage("user", userPrompt)
+                ))
+                .temperature(properties.getTemperature())
+                .maxTokens(properties.getMaxTokens())
+                .build();
+        return new Prompt(request, digest(PROMPT_VERSION, request.getModel(),
+                String.valueOf(request.getTemperature()), userPrompt));
+    }
+
+    private static String digest(String... parts) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                sha256.update(part.getBytes(StandardCharsets.UTF_8));
+                sha256.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(sha256.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 模型请求及其输入摘要
+     */
+    record Prompt(ChatCompletionRequest request, String digest) {
+    }
+
+    /**
+     * 查找输入摘要相同的已有结果
+     */
+    private AISummary lookup(Prompt prompt) {
+        return aiResultCache.get(prompt.digest(), () -> aiSummaryMapper.findCompletedByDigest(prompt.digest()));
+    }
+
+    /**
+     * 缓存命中时直接完成总结；未命中或任务已在进行时返回 null
+     */
+    private AISummary reuseCached(Dream dream, Prompt prompt) {
+        long startTime = System.currentTimeMillis();
+        AISummary cached = lookup(prompt);
+        if (cached == null) {
+            return null;
+        }
+        AISummary summary = self.completeFromCache(dream, cached, prompt.digest(), startTime);
+        if (summary != null) {
+            log.info("AI总结命中结果缓存, dreamId: {}", dream.getId());
+        }
+        return summary;
+    }
+
+    /**
+     * 以缓存结果填充总结；未调用模型，消耗的 token 记为 0
+     */
+    private void applyCached(AISummary summary, AISummary cached, String digest, long startTime) {
+        summary.setSummary(cached.getSummary());
+        summary.setKeywords(cached.getKeywords());
+        summary.setEmotionAnalysis(cached.getEmotionAnalysis());
+        summary.setSymbolAnalysis(cached.getSymbolAnalysis());
+        summary.setPsychologicalInsight(cached.getPsychologicalInsight());
+        summary.setAdvice(cached.getAdvice());
+        summary.setConfidenceScore(cached.getConfidenceScore());
+        summary.setStatus(AISummary.SummaryStatus.COMPLETED);
+        summary.setTokensUsed(0);
+        summary.setGenerationTimeMs((int) (System.currentTimeMillis() - startTime));
+        summary.setContentDigest(digest);
+        summary.setCacheHit(true);
+        summary.setErrorMessage(null);
+        summary.setUpdatedAt(LocalDateTime.now());
+    }
+
+    /**
+     * 解析模型输出的完整内容并保存为 COMPLETED
+     */
+    private AISummary applyResponse(Dream dream, AISummary summary, String digest, String content,
+                                    Integer tokensUsed, long startTime) throws JsonProcessingException {
+        // 清理可能存在的 markdown 代码块标记
+        content = cleanJsonContent(content);
+        
+        log.debug("AI返回内容(清理后): {}", content);
+        
+        // 使用配置了 snake_case 的 ObjectMapper 解析响应
+        AISummaryResponse aiResponse = RESPONSE_MAPPER.readValue(content, AISummaryResponse.class);
+        
+        log.info("解析AI响应: summary={}, keywords={}, emotionAnalysis={}, symbolAnalysis={}",
+                aiResponse.getSummary() != null ? "有" : "无",
+                aiResponse.getKeywords() != null ? "有" : "无", 
+                aiResponse.getEmotionAnalysis() != null ? "有" : "无",
+                aiResponse.getSymbolAnalysis() != null ? "有" : "无");
+        
+        // 更新总结记录
+        summary.setSummary(aiResponse.getSummary());
+        summary.setKeywords(convertKeywords(aiResponse.getKeywords()));
+        summary.setEmotionAnalysis(convertEmotionAnalysis(aiResponse.getEmotionAnalysis()));
+        summary.setSymbolAnalysis(convertSymbolAnalysis(aiResponse.getSymbolAnalysis()));
+        summary.setPsychologicalInsight(aiResponse.getPsychologicalInsight());
+        summary.setAdvice(aiResponse.getAdvice());
+        summary.setStatus(AISummary.SummaryStatus.COMPLETED);
+        summary.setTokensUsed(tokensUsed);
+        summary.setGenerationTimeMs((int) (System.currentTimeMillis() - startTime));
+        completedTimer.record(summary.getGenerationTimeMs(), TimeUnit.MILLISECONDS);
+        summary.setConfidenceScore(new BigDecimal("0.85")); // 默认置信度
+        summary.setErrorMessage(null); // 清除之前的错误信息
+        summary.setContentDigest(digest);
+        summary.setCacheHit(false);
+        summary.setUpdatedAt(LocalDateTime.now());
+        
+        log.info("准备更新AI总结, id={}, status={}", summary.getId(), summary.getStatus());
+        
+        self.saveSummary(summary);
+        aiResultCache.put(digest, summary);
+        
+        log.info("AI总结生成成功, dreamId: {}, 耗时: {}ms", dream.getId(), summary.getGenerationTimeMs());
+        
+        return summary;
+    }
+
     /**
      * 清理 AI 返回内容中的 markdown 代码块标记
      */
@@ -333,6 +681,168 @@ public class AISummaryServiceImpl implements AISummaryService {
         return aiSummaryMapper.findByDreamId(dreamId);
     }
 
+    /**
+     * 一次流式生成：模型输出逐段喂给增量解析器并转发为 SSE 事件，结束后按完整内容解析保存。
+     * 回调在 OkHttp 调度线程上执行；客户端断开后继续消费模型输出，结果照常保存。
+     * 创建前已占用一个执行器槽位，成功或失败结束时归还。
+     */
+    private final class SummaryStream implements JsonFieldStreamParser.Listener {
+
+        private final Dream dream;
+        private final Prompt prompt;
+        private final Pending pending;
+        private final SseEmitter emitter;
+        private final JsonFieldStreamParser parser = new JsonFieldStreamParser(this);
+        private final StringBuilder content = new StringBuilder();
+        private final long startTime = System.currentTimeMillis();
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private volatile boolean disconnected;
+
+        private SummaryStream(Dream dream, Prompt prompt, Pending pending, SseEmitter emitter) {
+            this.dream = dream;
+            this.prompt = prompt;
+            this.pending = pending;
+            this.emitter = emitter;
+        }
+
+        void start() {
+            emitter.onTimeout(() -> disconnected = true);
+            emitter.onError(e -> disconnected = true);
+            try {
+                openAiClient.streamChatCompletion(prompt.request())
+                        .subscribe(this::onChunk, this::onFailure, this::onFinish);
+            } catch (RuntimeException e) {
+                onFailure(e);
+            }
+        }
+
+        private void onChunk(ChatCompletionChunk chunk) {
+            if (chunk.getChoices() == null || chunk.getChoices().isEmpty()
+                    || chunk.getChoices().get(0).getMessage() == null) {
+                return;
+            }
+            String delta = chunk.getChoices().get(0).getMessage().getContent();
+            if (delta != null && !delta.isEmpty()) {
+                content.append(delta);
+                parser.feed(delta);
+            }
+        }
+
+        @Override
+        public void onText(String field, String delta) {
+            send("delta", new StreamDelta(toCamelCase(field), delta));
+        }
+
+        @Override
+        public void onValue(String field, String json) {
+            Object value = convertField(field, json);
+            if (value != null) {
+                send("field", new StreamField(toCamelCase(field), value));
+            }
+        }
+
+        private void onFinish() {
+            AISummary summary;
+            try {
+                summary = applyResponse(dream, pending.summary(), prompt.digest(), content.toString(), null, startTime);
+                aiJobService.complete(pending.lease());
+            } catch (Exception e) {
+                onFailure(e);
+                return;
+            }
+            releaseSlot();
+            send("done", summary);
+            emitter.complete();
+        }
+
+        private void onFailure(Throwable t) {
+            try {
+                Exception e = t instanceof Exception exception ? exception : new RuntimeException(t);
+                AISummary.SummaryStatus status = handleFailure(pending.lease(), dream, pending.summary(), e, startTime);
+                send("error", new StreamError(status, e.getMessage()));
+                emitter.complete();
+            } finally {
+                releaseSlot();
+            }
+        }
+
+        private void releaseSlot() {
+            if (finished.compareAndSet(false, true)) {
+                aiSummaryExecutor.release();
+            }
+        }
+
+        private void send(String name, Object data) {
+            if (!disconnected && !sendEvent(emitter, name, data)) {
+                disconnected = true;
+            }
+        }
+    }
+
+    /**
+     * 发送一个 SSE 事件；客户端已断开或响应已结束时返回 false
+     */
+    private static boolean sendEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 结构化字段完整后转换为与总结实体相同的结构；解析失败时忽略，以最终的完整解析为准
+     */
+    private Object convertField(String field, String json) {
+        try {
+            return switch (field) {
+                case "keywords" -> convertKeywords(
+                        RESPONSE_MAPPER.readValue(json, AISummaryResponse.KeywordsResponse.class));
+                case "emotion_analysis" -> convertEmotionAnalysis(
+                        RESPONSE_MAPPER.readValue(json, AISummaryResponse.EmotionAnalysisResponse.class));
+                case "symbol_analysis" -> convertSymbolAnalysis(
+                        RESPONSE_MAPPER.readValue(json, AISummaryResponse.SymbolAnalysisResponse.class));
+                default -> null;
+            };
+        } catch (JsonProcessingException e) {
+            log.debug("流式解析字段失败, field: {}: {}", field, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String toCamelCase(String field) {
+        StringBuilder result = new StringBuilder(field.length());
+        boolean upper = false;
+        for (char c : field.toCharArray()) {
+            if (c == '_') {
+                upper = true;
+            } else {
+                result.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * SSE 事件数据：文本字段增量
+     */
+    record StreamDelta(String field, String text) {
+    }
+
+    /**
+     * SSE 事件数据：结构化字段
+     */
+    record StreamField(String field, Object value) {
+    }
+
+    /**
+     * SSE 事件数据：生成失败，status 为 DEFERRED 时已安排后台重试
+     */
+    record StreamError(AISummary.SummaryStatus status, String message) {
+    }
+
     // AI响应的数据类
     @lombok.Data
     private static class AISummaryResponse {
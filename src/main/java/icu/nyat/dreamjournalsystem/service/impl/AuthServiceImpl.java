@@ -7,19 +7,29 @@ import icu.nyat.dreamjournalsystem.entity.User;
 import icu.nyat.dreamjournalsystem.exception.BusinessException;
 import icu.nyat.dreamjournalsystem.exception.ErrorCode;
 import icu.nyat.dreamjournalsystem.mapper.UserMapper;
+import icu.nyat.dreamjournalsystem.security.JwtClaims;
 import icu.nyat.dreamjournalsystem.security.JwtTokenProvider;
+import icu.nyat.dreamjournalsystem.security.LastLoginBuffer;
+import icu.nyat.dreamjournalsystem.security.LoginAttemptService;
+import icu.nyat.dreamjournalsystem.security.PasswordHashingExecutor;
+import icu.nyat.dreamjournalsystem.security.PrincipalCache;
+import icu.nyat.dreamjournalsystem.security.TokenRevocationService;
+import icu.nyat.dreamjournalsystem.security.UserExistenceFilter;
+import icu.nyat.dreamjournalsystem.security.UserPrincipal;
 import icu.nyat.dreamjournalsystem.service.AuthService;
+import icu.nyat.dreamjournalsystem.service.UserSessionService;
+import icu.nyat.dreamjournalsystem.service.UserSessionService.IssuedSession;
+import icu.nyat.dreamjournalsystem.util.TransactionHooks;
+import icu.nyat.dreamjournalsystem.audit.AuditLog;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 
 /**
  * 认证服务实现
@@ -30,28 +40,29 @@ import java.time.LocalDateTime;
 public class AuthServiceImpl implements AuthService {
 
     private final UserMapper userMapper;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final LoginAttemptService loginAttemptService;
+    private final LastLoginBuffer lastLoginBuffer;
     private final JwtTokenProvider jwtTokenProvider;
-    private final AuthenticationManager authenticationManager;
-
-    private static final int MAX_LOGIN_ATTEMPTS = 5;
-    private static final int LOCK_DURATION_MINUTES = 30;
+    private final PrincipalCache principalCache;
+    private final TokenRevocationService tokenRevocationService;
+    private final UserSessionService userSessionService;
+    private final UserExistenceFilter userExistenceFilter;
 
     @Override
     @Transactional
-    public LoginResponse register(RegisterRequest request, String ipAddress) {
+    @AuditLog(action = "USER_REGISTER", targetType = "USER", targetId = "#result.user.id", userId = "#result.user.id")
+    public LoginResponse register(RegisterRequest request, String ipAddress, String userAgent) {
         // 验证确认密码
         if (!request.getPassword().equals(request.getConfirmPassword())) {
             throw new BusinessException(ErrorCode.VALIDATION_ERROR, "两次输入的密码不一致");
         }
 
-        // 检查用户名是否已存在
-        if (userMapper.countByUsername(request.getUsername()) > 0) {
+        // 布隆过滤器判定一定可用时不查询；可能已占用时先查询，避免为重复名称计算 BCrypt
+        if (!isUsernameAvailable(request.getUsername())) {
             throw new BusinessException(ErrorCode.USER_EXISTS, "用户名已存在");
         }
-
-        // 检查邮箱是否已注册
-        if (userMapper.countByEmail(request.getEmail()) > 0) {
+        if (!isEmailAvailable(request.getEmail())) {
             throw new BusinessException(ErrorCode.EMAIL_EXISTS, "邮箱已注册");
         }
 
@@ -59,7 +70,7 @@ public class AuthServiceImpl implements AuthService {
         User user = new User();
         user.setUsername(request.getUsername());
         user.setEmail(request.getEmail());
-        user.setPasswordHash(passwordEncoder.encode(request.getPassword()));
+        user.setPasswordHash(passwordHashingExecutor.encode(request.getPassword()));
         user.setNickname(request.getNickname() != null ? request.getNickname() : request.getUsername());
         user.setRole(User.UserRole.USER);
         user.setStatus(User.UserStatus.ACTIVE);
@@ -67,36 +78,56 @@ public class AuthServiceImpl implements AuthService {
         user.setCreatedAt(LocalDateTime.now());
         user.setUpdatedAt(LocalDateTime.now());
 
-        userMapper.insert(user);
+        // 并发注册同名用户时由唯一约束兜底
+        try {
+            userMapper.insert(user);
+        } catch (DuplicateKeyException e) {
+            throw duplicateUserException(e);
+        }
+        userExistenceFilter.add(user.getUsername(), user.getEmail());
 
         log.info("新用户注册成功: {}", user.getUsername());
 
-        // 注册成功后自动登录，生成令牌
-        String accessToken = jwtTokenProvider.generateAccessToken(user.getUsername());
-        String refreshToken = jwtTokenProvider.generateRefreshToken(user.getUsername());
+        // 更新登录信息（异步合并写入）；提交后再记录，否则阈值触发的写入可能早于用户行提交
+        Long userId = user.getId();
+        TransactionHooks.afterCommit(() -> lastLoginBuffer.record(userId, ipAddress));
 
-        // 更新登录信息
-        userMapper.updateLoginInfo(user.getId(), ipAddress);
+        // 注册成功后自动登录，创建会话并生成令牌
+        IssuedSession session = userSessionService.createSession(user.getId(), userAgent, ipAddress);
+        return buildLoginResponse(user, session);
+    }
 
-        return LoginResponse.builder()
-                .accessToken(accessToken)
-                .refreshToken(refreshToken)
-                .tokenType("Bearer")
-                .expiresIn(jwtTokenProvider.getAccessTokenExpirationInSeconds())
-                .user(LoginResponse.UserInfo.builder()
-                        .id(user.getId())
-                        .username(user.getUsername())
-                        .email(user.getEmail())
-                        .nickname(user.getNickname())
-                        .avatarUrl(user.getAvatarUrl())
-                        .role(user.getRole().name())
-                        .build())
-                .build();
+    @Override
+    public boolean isUsernameAvailable(String username) {
+        return !userExistenceFilter.mightContainUsername(username)
+                || userMapper.countByUsername(username) == 0;
     }
 
     @Override
-    @Transactional
-    public LoginResponse login(LoginRequest request, String ipAddress) {
+    public boolean isEmailAvailable(String email) {
+        return !userExistenceFilter.mightContainEmail(email)
+                || userMapper.countByEmail(email) == 0;
+    }
+
+    /**
+     * 根据冲突的唯一键（users.username / users.email）转换为业务异常
+     */
+    private BusinessException duplicateUserException(DuplicateKeyException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        int keyIndex = message != null ? message.lastIndexOf("for key") : -1;
+        String key = keyIndex >= 0 ? message.substring(keyIndex) : "";
+        if (key.contains("email")) {
+            return new BusinessException(ErrorCode.EMAIL_EXISTS, "邮箱已注册");
+        }
+        return new BusinessException(ErrorCode.USER_EXISTS, "用户名已存在");
+    }
+
+    /**
+     * 登录不开启事务：BCrypt 校验期间不占用数据库连接，锁定账户的更新也不会随异常回滚
+     */
+    @Override
+    @AuditLog(action = "USER_LOGIN", targetType = "USER", targetId = "#result.user.id", userId = "#result.user.id")
+    public LoginResponse login(LoginRequest request, String ipAddress, String userAgent) {
         // 查找用户
         User user = userMapper.findByUsername(request.getUsername());
         if (user == null) {
@@ -107,94 +138,166 @@ public class AuthServiceImpl implements AuthService {
             throw new BusinessException(ErrorCode.LOGIN_FAILED, "用户名或密码错误");
         }
 
-        // 检查账户状态
+        // 检查账户状态：只有 ACTIVE 账户可以登录（与刷新令牌、请求认证一致）
         if (user.getStatus() == User.UserStatus.BANNED) {
             throw new BusinessException(ErrorCode.USER_BANNED, "账户已被禁用");
         }
+        if (user.getStatus() != User.UserStatus.ACTIVE) {
+            throw new BusinessException(ErrorCode.USER_INACTIVE, "账户未激活");
+        }
 
         // 检查账户是否被锁定
         if (user.getLockedUntil() != null && user.getLockedUntil().isAfter(LocalDateTime.now())) {
             throw new BusinessException(ErrorCode.USER_LOCKED, "账户已被锁定，请稍后再试");
         }
 
-        try {
-            // 认证
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(user.getUsername(), request.getPassword())
-            );
-
-            // 更新登录信息
-            userMapper.updateLoginInfo(user.getId(), ipAddress);
-
-            // 生成令牌
-            String accessToken = jwtTokenProvider.generateAccessToken(authentication);
-            String refreshToken = jwtTokenProvider.generateRefreshToken(user.getUsername());
-
-            log.info("用户登录成功: {}", user.getUsername());
-
-            return LoginResponse.builder()
-                    .accessToken(accessToken)
-                    .refreshToken(refreshToken)
-                    .tokenType("Bearer")
-                    .expiresIn(jwtTokenProvider.getAccessTokenExpirationInSeconds())
-                    .user(LoginResponse.UserInfo.builder()
-                            .id(user.getId())
-                            .username(user.getUsername())
-                            .email(user.getEmail())
-                            .nickname(user.getNickname())
-                            .avatarUrl(user.getAvatarUrl())
-                            .role(user.getRole().name())
-                            .build())
-                    .build();
-
-        } catch (BadCredentialsException e) {
-            // 增加登录失败次数
-            userMapper.incrementLoginAttempts(user.getId());
-            
-            // 检查是否需要锁定账户
-            if (user.getLoginAttempts() + 1 >= MAX_LOGIN_ATTEMPTS) {
-                LocalDateTime lockUntil = LocalDateTime.now().plusMinutes(LOCK_DURATION_MINUTES);
+        // 在独立线程池中校验密码
+        if (!passwordHashingExecutor.matches(request.getPassword(), user.getPasswordHash())) {
+            // 失败次数记在 Redis，达到上限后才写入锁定状态
+            if (loginAttemptService.recordFailure(user.getId())) {
+                LocalDateTime lockUntil = LocalDateTime.now().plus(loginAttemptService.getLockDuration());
                 userMapper.lockAccount(user.getId(), lockUntil);
+                loginAttemptService.reset(user.getId());
                 log.warn("用户 {} 因多次登录失败被锁定", user.getUsername());
-                throw new BusinessException(ErrorCode.USER_LOCKED, "登录失败次数过多，账户已被锁定30分钟");
+                throw new BusinessException(ErrorCode.USER_LOCKED, "登录失败次数过多，账户已被锁定");
             }
-
             throw new BusinessException(ErrorCode.LOGIN_FAILED, "用户名或密码错误");
         }
+
+        loginAttemptService.reset(user.getId());
+
+        // 更新登录信息（异步合并写入）
+        lastLoginBuffer.record(user.getId(), ipAddress);
+
+        // 创建会话并生成令牌
+        IssuedSession session = userSessionService.createSession(user.getId(), userAgent, ipAddress);
+
+        log.info("用户登录成功: {}", user.getUsername());
+
+        return buildLoginResponse(user, session);
     }
 
+    /**
+     * 业务异常不回滚：过期会话的删除、被禁用用户的会话删除都需在抛出异常后保留
+     */
     @Override
-    public String refreshToken(String refreshToken) {
-        if (!jwtTokenProvider.validateToken(refreshToken)) {
+    @Transactional(noRollbackFor = BusinessException.class)
+    public LoginResponse refreshToken(String refreshToken) {
+        IssuedSession session = isLegacyRefreshToken(refreshToken)
+                ? migrateLegacyRefreshToken(refreshToken)
+                : userSessionService.rotate(refreshToken);
+
+        User user = userMapper.selectById(session.userId());
+        if (user == null || user.getStatus() != User.UserStatus.ACTIVE) {
+            userSessionService.deleteSession(session.sessionId());
             throw new BusinessException(ErrorCode.TOKEN_INVALID, "刷新令牌无效");
         }
 
-        String username = jwtTokenProvider.getUsernameFromToken(refreshToken);
-        return jwtTokenProvider.generateAccessToken(username);
+        return LoginResponse.builder()
+                .accessToken(jwtTokenProvider.generateAccessToken(UserPrincipal.from(user), session.sessionId()))
+                .refreshToken(session.refreshToken())
+                .tokenType("Bearer")
+                .expiresIn(jwtTokenProvider.getAccessTokenExpirationInSeconds())
+                .build();
+    }
+
+    /**
+     * 改造前签发的刷新令牌是无状态 JWT（含 "."），新令牌为不含 "." 的随机串
+     */
+    private boolean isLegacyRefreshToken(String refreshToken) {
+        return refreshToken != null && refreshToken.indexOf('.') >= 0;
+    }
+
+    /**
+     * 过渡期内将旧 JWT 刷新令牌换成有状态会话
+     * 每个旧令牌只能迁移一次：迁移后在剩余有效期内吊销，重放时不再创建会话
+     */
+    private IssuedSession migrateLegacyRefreshToken(String refreshToken) {
+        JwtClaims claims = jwtTokenProvider.isAcceptLegacyTokens() ? jwtTokenProvider.parseToken(refreshToken) : null;
+        if (claims == null || !claims.isRefreshToken() || tokenRevocationService.isRevoked(claims)) {
+            throw new BusinessException(ErrorCode.TOKEN_INVALID, "刷新令牌无效");
+        }
+
+        User user = claims.userId() != null
+                ? userMapper.selectById(claims.userId())
+                : userMapper.findByUsername(claims.subject());
+        if (user == null || issuedBeforePasswordChange(claims, user)) {
+            throw new BusinessException(ErrorCode.TOKEN_INVALID, "刷新令牌无效");
+        }
+
+        tokenRevocationService.revoke(claims);
+        return userSessionService.createSession(user.getId(), null, null);
+    }
+
+    /**
+     * 令牌是否签发于最近一次修改密码之前（修改密码只删除会话，旧 JWT 需在此拒绝）
+     */
+    private static boolean issuedBeforePasswordChange(JwtClaims claims, User user) {
+        if (user.getPasswordChangedAt() == null) {
+            return false;
+        }
+        Instant changedAt = user.getPasswordChangedAt().atZone(ZoneId.systemDefault()).toInstant();
+        return claims.issuedAt() == null || !claims.issuedAt().isAfter(changedAt);
     }
 
     @Override
+    @AuditLog(action = "USER_LOGOUT", targetType = "USER")
     public void logout(String token) {
-        // 可以将令牌加入黑名单（需要Redis支持）
-        log.info("用户退出登录");
+        JwtClaims claims = jwtTokenProvider.parseToken(token);
+        if (claims == null) {
+            return;
+        }
+        // 吊销当前访问令牌，剩余有效期内不再被接受
+        tokenRevocationService.revoke(claims);
+        // 删除所属会话，对应的刷新令牌随之失效
+        if (claims.sessionId() != null) {
+            userSessionService.deleteSession(claims.sessionId());
+        }
+        log.info("用户退出登录: {}", claims.subject());
     }
 
     @Override
     @Transactional
+    @AuditLog(action = "PASSWORD_CHANGE", targetType = "USER", targetId = "#userId", userId = "#userId")
     public void changePassword(Long userId, String currentPassword, String newPassword) {
         User user = userMapper.selectById(userId);
         if (user == null) {
             throw new BusinessException(ErrorCode.USER_NOT_FOUND, "用户不存在");
         }
 
-        if (!passwordEncoder.matches(currentPassword, user.getPasswordHash())) {
+        if (!passwordHashingExecutor.matches(currentPassword, user.getPasswordHash())) {
             throw new BusinessException(ErrorCode.LOGIN_FAILED, "当前密码错误");
         }
 
-        user.setPasswordHash(passwordEncoder.encode(newPassword));
+        user.setPasswordHash(passwordHashingExecutor.encode(newPassword));
+        user.setPasswordChangedAt(LocalDateTime.now());
         user.setUpdatedAt(LocalDateTime.now());
         userMapper.updateById(user);
 
+        // 使缓存中的旧密码哈希失效，并让所有设备重新登录
+        principalCache.invalidate(userId);
+        userSessionService.deleteAllSessions(userId);
+
         log.info("用户 {} 修改密码成功", user.getUsername());
     }
+
+    /**
+     * 构建登录响应
+     */
+    private LoginResponse buildLoginResponse(User user, IssuedSession session) {
+        return LoginResponse.builder()
+                .accessToken(jwtTokenProvider.generateAccessToken(UserPrincipal.from(user), session.sessionId()))
+                .refreshToken(session.refreshToken())
+                .tokenType("Bearer")
+                .expiresIn(jwtTokenProvider.getAccessTokenExpirationInSeconds())
+                .user(LoginResponse.UserInfo.builder()
+                        .id(user.getId())
+                        .username(user.getUsername())
+                        .email(user.getEmail())
+                        .nickname(user.getNickname())
+                        .avatarUrl(user.getAvatarUrl())
+                        .role(user.getRole().name())
+                        .build())
+                .build();
+    }
 }
@@ -0,0 +1,119 @@
+package icu.nyat.dreamjournalsystem.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import icu.nyat.dreamjournalsystem.dto.response.DreamDetailResponse;
+import icu.nyat.dreamjournalsystem.entity.AISummary;
+import icu.nyat.dreamjournalsystem.service.DreamService;
+import icu.nyat.dreamjournalsystem.util.CsvWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 梦境导出写入器（NDJSON / JSON 数组 / CSV），逐条写出，不保留已写出的记录
+ * 不关闭底层输出流
+ */
+abstract class DreamExportWriter {
+
+    /**
+     * 写出一条梦境
+     */
+    abstract void write(DreamDetailResponse dream) throws IOException;
+
+    /**
+     * 写出结尾并刷新缓冲
+     */
+    abstract void finish() throws IOException;
+
+    static DreamExportWriter of(DreamService.ExportFormat format, OutputStream out, ObjectMapper objectMapper)
+            throws IOException {
+        return switch (format) {
+            case NDJSON -> new JsonExportWriter(out, objectMapper, false);
+            case JSON -> new JsonExportWriter(out, objectMapper, true);
+            case CSV -> new CsvExportWriter(out);
+        };
+    }
+
+    /**
+     * NDJSON 每行一个对象；JSON 为一个数组。字段与详情接口一致
+     */
+    private static final class JsonExportWriter extends DreamExportWriter {
+
+        private final JsonGenerator generator;
+        private final ObjectWriter objectWriter;
+        private final boolean array;
+
+        JsonExportWriter(OutputStream out, ObjectMapper objectMapper, boolean array) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .setRootValueSeparator(null);
+            // 不在每条记录后 flush，由生成器缓冲与 gzip 决定实际写出时机
+            this.objectWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            this.array = array;
+            if (array) {
+                generator.writeStartArray();
+            }
+        }
+
+        @Override
+        void write(DreamDetailResponse dream) throws IOException {
+            objectWriter.writeValue(generator, dream);
+            if (!array) {
+                generator.writeRaw('\n');
+            }
+        }
+
+        @Override
+        void finish() throws IOException {
+            if (array) {
+                generator.writeEndArray();
+            }
+            generator.close();
+        }
+    }
+
+    /**
+     * 带 BOM 的 UTF-8 CSV，列名与导入接口兼容（未知列在导入时忽略），tags 以 ; 分隔
+     */
+    private static final class CsvExportWriter extends DreamExportWriter {
+
+        private final Writer writer;
+        private final CsvWriter csv;
+
+        CsvExportWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            this.csv = new CsvWriter(writer);
+            writer.write('\uFEFF');
+            csv.writeRecord("id", "title", "content", "dreamDate", "sleepStartTime", "sleepEndTime", "sleepQuality",
+                    "moodBeforeSleep", "moodAfterWake", "dreamType", "vividness", "isFavorite", "isPrivate", "tags",
+                    "createdAt", "updatedAt", "aiSummaryStatus", "aiSummary", "aiPsychologicalInsight", "aiAdvice");
+        }
+
+        @Override
+        void write(DreamDetailResponse dream) throws IOException {
+            AISummary summary = dream.getAiSummary();
+            csv.writeRecord(dream.getId(), dream.getTitle(), dream.getContent(), dream.getDreamDate(),
+                    dream.getSleepStartTime(), dream.getSleepEndTime(), dream.getSleepQuality(),
+                    dream.getMoodBeforeSleep(), dream.getMoodAfterWake(), dream.getDreamType(), dream.getVividness(),
+                    dream.getIsFavorite(), dream.getIsPrivate(),
+                    dream.getTags() != null ? String.join(";", dream.getTags()) : null,
+                    dream.getCreatedAt(), dream.getUpdatedAt(),
+                    summary != null ? summary.getStatus() : null,
+                    summary != null ? summary.getSummary() : null,
+                    summary != null ? summary.getPsychologicalInsight() : null,
+                    summary != null ? summary.getAdvice() : null);
+        }
+
+        @Override
+        void finish() throws IOException {
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package icu.nyat.dreamjournalsystem.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import icu.nyat.dreamjournalsystem.dto.request.DreamRequest;
+import icu.nyat.dreamjournalsystem.util.CsvReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 梦境导入记录读取器（NDJSON / CSV），逐条解析，不缓冲整个输入
+ */
+abstract class DreamImportReader {
+
+    /**
+     * 单条记录：解析成功时 request 非空，否则 error 为错误原因
+     */
+    record Entry(int line, DreamRequest request, String error) {
+    }
+
+    /**
+     * 读取下一条记录，输入结束时返回 null
+     *
+     * @throws IOException 输入无法继续读取（如 CSV 引号未闭合）
+     */
+    abstract Entry next() throws IOException;
+
+    static DreamImportReader ndjson(Reader reader, ObjectMapper objectMapper) {
+        return new NdjsonReader(new BufferedReader(reader), objectMapper.readerFor(DreamRequest.class));
+    }
+
+    static DreamImportReader csv(Reader reader, ObjectMapper objectMapper, int maxFieldLength) {
+        return new CsvImportReader(new CsvReader(new BufferedReader(reader), maxFieldLength), objectMapper);
+    }
+
+    private static String describe(JsonProcessingException e) {
+        if (e instanceof JsonMappingException mapping && !mapping.getPath().isEmpty()) {
+            String field = mapping.getPath().stream()
+                    .map(ref -> ref.getFieldName() != null ? ref.getFieldName() : "[" + ref.getIndex() + "]")
+                    .collect(Collectors.joining("."));
+            return "字段 " + field + " 格式错误";
+        }
+        return "JSON 格式错误";
+    }
+
+    /**
+     * 每行一个 JSON 对象，空行跳过
+     */
+    private static final class NdjsonReader extends DreamImportReader {
+
+        private final BufferedReader reader;
+        private final ObjectReader objectReader;
+        private int line;
+
+        NdjsonReader(BufferedReader reader, ObjectReader objectReader) {
+            this.reader = reader;
+            this.objectReader = objectReader;
+        }
+
+        @Override
+        Entry next() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                line++;
+                if (text == null) {
+                    return null;
+                }
+                if (line == 1) {
+                    text = stripBom(text);
+                }
+            } while (text.isBlank());
+
+            try {
+                return new Entry(line, objectReader.readValue(text), null);
+            } catch (JsonProcessingException e) {
+                return new Entry(line, null, describe(e));
+            }
+        }
+    }
+
+    /**
+     * 首行为表头（字段名同 JSON，忽略大小写与下划线），tags 以 ; 或 | 分隔
+     */
+    private static final class CsvImportReader extends DreamImportReader {
+
+        private static final Map<String, String> PROPERTIES = Arrays.stream(new String[]{
+                        "title", "content", "dreamDate", "sleepStartTime", "sleepEndTime", "sleepQuality",
+                        "moodBeforeSleep", "moodAfterWake", "dreamType", "vividness", "isFavorite", "isPrivate", "tags"})
+                .collect(Collectors.toMap(CsvImportReader::normalize, name -> name));
+
+        private final CsvReader csv;
+        private final ObjectMapper objectMapper;
+        private String[] columns;
+
+        CsvImportReader(CsvReader csv, ObjectMapper objectMapper) {
+            this.csv = csv;
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        Entry next() throws IOException {
+            if (columns == null) {
+                List<String> header = csv.next();
+                if (header == null) {
+                    return null;
+                }
+                columns = header.stream()
+                        .map(name -> PROPERTIES.get(normalize(stripBom(name))))
+                        .toArray(String[]::new);
+            }
+
+            List<String> fields;
+            do {
+                fields = csv.next();
+                if (fields == null) {
+                    return null;
+                }
+            } while (fields.isEmpty());
+
+            Map<String, Object> values = new HashMap<>();
+            for (int i = 0; i < fields.size() && i < columns.length; i++) {
+                String value = fields.get(i).trim();
+                if (columns[i] == null || value.isEmpty()) {
+                    continue;
+                }
+                values.put(columns[i], "tags".equals(columns[i])
+                        ? Arrays.stream(value.split("[;|]")).map(String::trim).filter(tag -> !tag.isEmpty()).toList()
+                        : value);
+            }
+
+            try {
+                return new Entry(csv.getRecordLine(), objectMapper.convertValue(values, DreamRequest.class), null);
+            } catch (IllegalArgumentException e) {
+                String error = e.getCause() instanceof JsonProcessingException cause ? describe(cause) : "记录格式错误";
+                return new Entry(csv.getRecordLine(), null, error);
+            }
+        }
+
+        private static String normalize(String name) {
+            return name.trim().replace("_", "").toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static String stripBom(String text) {
+        return !text.isEmpty() && text.charAt(0) == '\uFEFF' ? text.substring(1) : text;
+    }
+}
@@ -1,24 +1,64 @@
 package icu.nyat.dreamjournalsystem.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+import com.baomidou.mybatisplus.extension.handlers.JacksonTypeHandler;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import icu.nyat.dreamjournalsystem.cache.DreamDetailCache;
+import icu.nyat.dreamjournalsystem.dto.request.DreamPatchRequest;
 import icu.nyat.dreamjournalsystem.dto.request.DreamRequest;
+import icu.nyat.dreamjournalsystem.dto.response.AISummaryTicket;
+import icu.nyat.dreamjournalsystem.dto.response.CursorPage;
+import icu.nyat.dreamjournalsystem.dto.response.DreamDetailResponse;
+import icu.nyat.dreamjournalsystem.dto.response.DreamImportResult;
+import icu.nyat.dreamjournalsystem.dto.response.DreamListItem;
+import icu.nyat.dreamjournalsystem.dto.response.DreamSearchResult;
 import icu.nyat.dreamjournalsystem.entity.Dream;
 import icu.nyat.dreamjournalsystem.exception.BusinessException;
 import icu.nyat.dreamjournalsystem.exception.ErrorCode;
 import icu.nyat.dreamjournalsystem.mapper.DreamMapper;
+import icu.nyat.dreamjournalsystem.search.DreamIndexService;
 import icu.nyat.dreamjournalsystem.service.AISummaryService;
+import icu.nyat.dreamjournalsystem.service.DreamStatisticsService;
 import icu.nyat.dreamjournalsystem.service.DreamService;
+import icu.nyat.dreamjournalsystem.audit.AuditLog;
+import icu.nyat.dreamjournalsystem.util.DreamCursor;
+import icu.nyat.dreamjournalsystem.util.SnippetUtils;
+import icu.nyat.dreamjournalsystem.util.TransactionHooks;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * 梦境服务实现
@@ -28,12 +68,281 @@ import java.util.List;
 @RequiredArgsConstructor
 public class DreamServiceImpl implements DreamService {
 
+    /**
+     * 可更新的列（字段名 -> 列），部分更新与整体更新都只写入其中变化的列
+     */
+    private static final Map<String, SFunction<Dream, ?>> UPDATABLE_COLUMNS = new LinkedHashMap<>();
+
+    static {
+        UPDATABLE_COLUMNS.put("title", Dream::getTitle);
+        UPDATABLE_COLUMNS.put("content", Dream::getContent);
+        UPDATABLE_COLUMNS.put("dreamDate", Dream::getDreamDate);
+        UPDATABLE_COLUMNS.put("sleepStartTime", Dream::getSleepStartTime);
+        UPDATABLE_COLUMNS.put("sleepEndTime", Dream::getSleepEndTime);
+        UPDATABLE_COLUMNS.put("sleepQuality", Dream::getSleepQuality);
+        UPDATABLE_COLUMNS.put("moodBeforeSleep", Dream::getMoodBeforeSleep);
+        UPDATABLE_COLUMNS.put("moodAfterWake", Dream::getMoodAfterWake);
+        UPDATABLE_COLUMNS.put("dreamType", Dream::getDreamType);
+        UPDATABLE_COLUMNS.put("vividness", Dream::getVividness);
+        UPDATABLE_COLUMNS.put("isFavorite", Dream::getIsFavorite);
+        UPDATABLE_COLUMNS.put("isPrivate", Dream::getIsPrivate);
+        UPDATABLE_COLUMNS.put("tags", Dream::getTags);
+    }
+
+    /**
+     * 影响统计汇总的字段
+     */
+    private static final Set<String> STAT_FIELDS = Set.of(
+            "dreamDate", "sleepQuality", "moodBeforeSleep", "moodAfterWake", "dreamType", "vividness", "isFavorite");
+
+    private static final String TAGS_MAPPING = "typeHandler=" + JacksonTypeHandler.class.getName();
+
     private final DreamMapper dreamMapper;
     private final AISummaryService aiSummaryService;
+    private final DreamIndexService dreamIndexService;
+    private final DreamStatisticsService dreamStatisticsService;
+    private final DreamDetailCache dreamDetailCache;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 是否启用全文检索（配置关闭或数据库无 FULLTEXT 索引时降级为 LIKE）
+     */
+    @Value("${dream.search.full-text:true}")
+    private boolean fullTextEnabled;
+
+    /**
+     * ngram 分词长度（与 MySQL ngram_token_size 一致），更短的关键词无法命中全文索引
+     */
+    @Value("${dream.search.ngram-token-size:2}")
+    private int ngramTokenSize;
+
+    @Value("${dream.search.snippet-length:120}")
+    private int snippetLength;
+
+    /**
+     * 导入：每批行数（一条多行 INSERT、一个事务）、单次最大记录数、错误报告保留条数、CSV 单字段最大长度
+     */
+    @Value("${dream.import.batch-size:500}")
+    private int importBatchSize;
+
+    @Value("${dream.import.max-records:20000}")
+    private int importMaxRecords;
+
+    @Value("${dream.import.max-errors:1000}")
+    private int importMaxErrors;
+
+    @Value("${dream.import.max-field-length:65535}")
+    private int importMaxFieldLength;
+
+    /**
+     * 导出：每段读取的行数（每段一个短事务与一个流式游标）
+     */
+    @Value("${dream.export.chunk-size:200}")
+    private int exportChunkSize;
+
+    private volatile boolean fullTextAvailable;
+
+    /**
+     * 启动后探测全文索引是否可用
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void detectFullTextSupport() {
+        if (!fullTextEnabled) {
+            return;
+        }
+        try {
+            fullTextAvailable = dreamMapper.countFullTextIndexes() > 0;
+        } catch (Exception e) {
+            log.warn("探测全文索引失败，关键词检索使用 LIKE: {}", e.getMessage());
+            fullTextAvailable = false;
+        }
+        log.info("梦境关键词检索方式: {}", fullTextAvailable ? "FULLTEXT" : "LIKE");
+    }
 
     @Override
     @Transactional
+    @AuditLog(action = "DREAM_CREATE", targetType = "DREAM", targetId = "#result.id", userId = "#userId")
     public Dream createDream(Long userId, DreamRequest request) {
+        Dream dream = toEntity(userId, request);
+
+        dreamMapper.insert(dream);
+        dreamStatisticsService.recordChange(null, dream);
+        dreamIndexService.onDreamSaved(dream);
+
+        log.info("用户 {} 创建了新的梦境记录: {}", userId, dream.getId());
+
+        // 提交后再进入AI工作队列，避免总结记录引用尚未提交的梦境
+        if (Boolean.TRUE.equals(request.getGenerateAISummary())) {
+            TransactionHooks.afterCommit(() -> aiSummaryService.generateSummaryAsync(dream, false));
+        }
+
+        return dream;
+    }
+
+    @Override
+    @AuditLog(action = "DREAM_IMPORT", targetType = "DREAM", userId = "#userId")
+    public DreamImportResult importDreams(Long userId, Reader reader, ImportFormat format, boolean generateAISummary) {
+        DreamImportReader records = format == ImportFormat.CSV
+                ? DreamImportReader.csv(reader, objectMapper, importMaxFieldLength)
+                : DreamImportReader.ndjson(reader, objectMapper);
+
+        DreamImportResult result = new DreamImportResult();
+        List<Dream> batch = new ArrayList<>(importBatchSize);
+        List<Integer> batchLines = new ArrayList<>(importBatchSize);
+        List<Long> summaryQueue = new ArrayList<>();
+        int lastLine = 0;
+
+        try {
+            DreamImportReader.Entry entry;
+            while ((entry = records.next()) != null) {
+                lastLine = entry.line();
+                if (result.getTotal() >= importMaxRecords) {
+                    addImportError(result, entry.line(), "超过单次导入上限 " + importMaxRecords + " 条，后续记录未导入");
+                    break;
+                }
+                result.setTotal(result.getTotal() + 1);
+
+                String error = entry.error() != null ? entry.error() : validate(entry.request());
+                if (error != null) {
+                    addImportError(result, entry.line(), error);
+                    continue;
+                }
+                batch.add(toEntity(userId, entry.request()));
+                batchLines.add(entry.line());
+                if (batch.size() >= importBatchSize) {
+                    flushImportBatch(userId, batch, batchLines, result, generateAISummary ? summaryQueue : null);
+                }
+            }
+        } catch (IOException e) {
+            // 输入中断或格式无法继续解析：已提交的批次保留，其余记录不再导入
+            addImportError(result, lastLine + 1, "读取失败: " + e.getMessage());
+        }
+        flushImportBatch(userId, batch, batchLines, result, generateAISummary ? summaryQueue : null);
+
+        if (result.getImported() > 0) {
+            dreamIndexService.invalidate(userId);
+        }
+        if (!summaryQueue.isEmpty()) {
+            aiSummaryService.enqueueSummaries(summaryQueue);
+            result.setAiSummaryQueued(summaryQueue.size());
+        }
+
+        log.info("用户 {} 导入梦境: 共 {} 条, 成功 {} 条, 失败 {} 条",
+                userId, result.getTotal(), result.getImported(), result.getFailed());
+        return result;
+    }
+
+    @Override
+    public long exportDreams(Long userId, ExportFormat format, OutputStream out) throws IOException {
+        DreamExportWriter writer = DreamExportWriter.of(format, out, objectMapper);
+        DreamCursor after = null;
+        long exported = 0;
+        while (true) {
+            ExportChunk chunk = exportChunk(userId, after, writer);
+            exported += chunk.rows();
+            if (chunk.rows() < exportChunkSize) {
+                break;
+            }
+            after = chunk.last();
+        }
+        writer.finish();
+        log.info("用户 {} 导出梦境 {} 条, 格式: {}", userId, exported, format);
+        return exported;
+    }
+
+    /**
+     * 在一个短事务内以游标读取一段记录并直接写出；事务只覆盖这一段，不会在整个导出期间持有
+     */
+    private ExportChunk exportChunk(Long userId, DreamCursor after, DreamExportWriter writer) throws IOException {
+        try {
+            return transactionTemplate.execute(status -> {
+                int rows = 0;
+                DreamCursor last = after;
+                try (Cursor<DreamDetailResponse> cursor = dreamMapper.cursorForExport(userId, after, exportChunkSize)) {
+                    for (DreamDetailResponse dream : cursor) {
+                        writer.write(dream);
+                        last = DreamCursor.of(dream);
+                        rows++;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return new ExportChunk(rows, last);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private record ExportChunk(int rows, DreamCursor last) {
+    }
+
+    /**
+     * 写入一批导入记录；整批失败时逐条重试以定位出错的行
+     */
+    private void flushImportBatch(Long userId, List<Dream> batch, List<Integer> lines,
+                                  DreamImportResult result, List<Long> summaryQueue) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                dreamMapper.insertBatch(batch);
+                dreamStatisticsService.recordCreated(userId, batch);
+            });
+            result.setImported(result.getImported() + batch.size());
+            if (summaryQueue != null) {
+                batch.forEach(dream -> summaryQueue.add(dream.getId()));
+            }
+        } catch (DataAccessException e) {
+            log.warn("批量导入写入失败，逐条重试: {}", e.getMessage());
+            for (int i = 0; i < batch.size(); i++) {
+                Dream dream = batch.get(i);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        dreamMapper.insert(dream);
+                        dreamStatisticsService.recordChange(null, dream);
+                    });
+                    result.setImported(result.getImported() + 1);
+                    if (summaryQueue != null) {
+                        summaryQueue.add(dream.getId());
+                    }
+                } catch (DataAccessException ex) {
+                    log.warn("导入第 {} 行写入失败: {}", lines.get(i), ex.getMessage());
+                    addImportError(result, lines.get(i), "写入数据库失败");
+                }
+            }
+        }
+        batch.clear();
+        lines.clear();
+    }
+
+    /**
+     * 按 DreamRequest 上的约束校验，返回错误信息，通过时返回 null
+     */
+    private String validate(DreamRequest request) {
+        var violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private void addImportError(DreamImportResult result, int line, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < importMaxErrors) {
+            result.getErrors().add(new DreamImportResult.LineError(line, message));
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+
+    private static Dream toEntity(Long userId, DreamRequest request) {
         Dream dream = new Dream();
         dream.setUserId(userId);
         dream.setTitle(request.getTitle());
@@ -51,16 +360,6 @@ public class DreamServiceImpl implements DreamService {
         dream.setTags(request.getTags());
         dream.setCreatedAt(LocalDateTime.now());
         dream.setUpdatedAt(LocalDateTime.now());
-
-        dreamMapper.insert(dream);
-
-        log.info("用户 {} 创建了新的梦境记录: {}", userId, dream.getId());
-
-        // 异步生成AI总结
-        if (Boolean.TRUE.equals(request.getGenerateAISummary())) {
-            aiSummaryService.generateSummaryAsync(dream);
-        }
-
         return dream;
     }
 
@@ -80,19 +379,124 @@ public class DreamServiceImpl implements DreamService {
     }
 
     @Override
-    public IPage<Dream> getDreamsByUserId(Long userId, int page, int size,
-                                          String keyword, LocalDate startDate, LocalDate endDate,
-                                          Dream.DreamType dreamType, Boolean isFavorite) {
-        Page<Dream> pageRequest = new Page<>(page, size);
+    public DreamDetailResponse getDreamDetail(Long dreamId, Long userId) {
+        return dreamDetailCache.get(dreamId, userId, () -> {
+            DreamDetailResponse detail = dreamMapper.selectDetailById(dreamId);
+            if (detail == null) {
+                throw new BusinessException(ErrorCode.DREAM_NOT_FOUND, "梦境记录不存在");
+            }
+            if (!detail.getUserId().equals(userId)) {
+                throw new BusinessException(ErrorCode.ACCESS_DENIED, "无权访问此梦境记录");
+            }
+            return detail;
+        });
+    }
+
+    @Override
+    public IPage<DreamListItem> getDreamsByUserId(Long userId, int page, int size,
+                                                  String keyword, LocalDate startDate, LocalDate endDate,
+                                                  Dream.DreamType dreamType, Boolean isFavorite) {
+        Page<DreamListItem> pageRequest = new Page<>(page, size);
+        
+        LambdaQueryWrapper<Dream> queryWrapper = buildListQuery(userId, keyword, startDate, endDate, dreamType, isFavorite);
+        queryWrapper.orderByDesc(Dream::getDreamDate, Dream::getCreatedAt, Dream::getId);
         
+        return dreamMapper.selectListItemPage(pageRequest, queryWrapper);
+    }
+
+    @Override
+    public CursorPage<DreamListItem> getDreamsByCursor(Long userId, String after, int size, boolean withTotal,
+                                                       String keyword, LocalDate startDate, LocalDate endDate,
+                                                       Dream.DreamType dreamType, Boolean isFavorite) {
+        // 总数只在需要时单独计算，不带游标条件
+        Long total = withTotal
+                ? dreamMapper.selectCount(buildListQuery(userId, keyword, startDate, endDate, dreamType, isFavorite))
+                : null;
+
+        LambdaQueryWrapper<Dream> queryWrapper = buildListQuery(userId, keyword, startDate, endDate, dreamType, isFavorite);
+
+        if (StringUtils.hasText(after)) {
+            DreamCursor cursor = DreamCursor.decode(after);
+            // (dream_date, created_at, id) < (?, ?, ?) 展开写法，可走 idx_user_date_created 范围扫描
+            queryWrapper.and(w -> w
+                    .lt(Dream::getDreamDate, cursor.dreamDate())
+                    .or(w2 -> w2
+                            .eq(Dream::getDreamDate, cursor.dreamDate())
+                            .and(w3 -> w3
+                                    .lt(Dream::getCreatedAt, cursor.createdAt())
+                                    .or(w4 -> w4
+                                            .eq(Dream::getCreatedAt, cursor.createdAt())
+                                            .lt(Dream::getId, cursor.id())))));
+        }
+
+        // 多取一条判断是否还有下一页，不执行 COUNT 与 OFFSET
+        queryWrapper.orderByDesc(Dream::getDreamDate, Dream::getCreatedAt, Dream::getId)
+                .last("LIMIT " + (size + 1));
+        List<DreamListItem> records = dreamMapper.selectListItems(queryWrapper);
+
+        boolean hasNext = records.size() > size;
+        if (hasNext) {
+            records = records.subList(0, size);
+        }
+
+        return CursorPage.<DreamListItem>builder()
+                .content(records)
+                .pageSize(size)
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? DreamCursor.of(records.get(records.size() - 1)).encode() : null)
+                .totalElements(total)
+                .build();
+    }
+
+    @Override
+    public IPage<DreamSearchResult> searchDreams(Long userId, String keyword, int page, int size) {
+        String query = keyword.trim();
+        Page<DreamSearchResult> pageRequest = new Page<>(page, size);
+        IPage<DreamSearchResult> result = useFullText(query)
+                ? dreamMapper.searchFullText(pageRequest, userId, query)
+                : dreamMapper.searchLike(pageRequest, userId, query);
+
+        for (DreamSearchResult item : result.getRecords()) {
+            item.setSnippet(SnippetUtils.extract(item.getContent(), query, snippetLength));
+            item.setContent(null);
+        }
+        return result;
+    }
+
+    @Override
+    public List<DreamSearchResult> instantSearch(Long userId, String keyword, int limit) {
+        return dreamIndexService.search(userId, keyword, limit);
+    }
+
+    private boolean useFullText(String keyword) {
+        return fullTextAvailable && keyword.trim().length() >= ngramTokenSize;
+    }
+
+    /**
+     * 转为布尔模式短语（去除用户输入中的双引号）
+     */
+    private static String toPhrase(String keyword) {
+        return "\"" + keyword.trim().replace('"', ' ') + "\"";
+    }
+
+    /**
+     * 列表筛选条件（偏移分页与游标分页共用）
+     */
+    private LambdaQueryWrapper<Dream> buildListQuery(Long userId, String keyword, LocalDate startDate, LocalDate endDate,
+                                                     Dream.DreamType dreamType, Boolean isFavorite) {
         LambdaQueryWrapper<Dream> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(Dream::getUserId, userId);
         
         if (StringUtils.hasText(keyword)) {
-            queryWrapper.and(wrapper -> wrapper
-                    .like(Dream::getTitle, keyword)
-                    .or()
-                    .like(Dream::getContent, keyword));
+            if (useFullText(keyword)) {
+                // 布尔模式短语匹配：ngram 索引下等价于子串匹配，但走全文索引而非逐行扫描 TEXT
+                queryWrapper.apply("MATCH(title, content) AGAINST({0} IN BOOLEAN MODE)", toPhrase(keyword));
+            } else {
+                queryWrapper.and(wrapper -> wrapper
+                        .like(Dream::getTitle, keyword)
+                        .or()
+                        .like(Dream::getContent, keyword));
+            }
         }
         
         if (startDate != null) {
@@ -110,16 +514,16 @@ public class DreamServiceImpl implements DreamService {
         if (Boolean.TRUE.equals(isFavorite)) {
             queryWrapper.eq(Dream::getIsFavorite, true);
         }
-        
-        queryWrapper.orderByDesc(Dream::getDreamDate, Dream::getCreatedAt);
-        
-        return dreamMapper.selectPage(pageRequest, queryWrapper);
+
+        return queryWrapper;
     }
 
     @Override
     @Transactional
+    @AuditLog(action = "DREAM_UPDATE", targetType = "DREAM", targetId = "#dreamId", userId = "#userId")
     public Dream updateDream(Long dreamId, Long userId, DreamRequest request) {
         Dream dream = getDreamById(dreamId, userId);
+        Dream before = snapshot(dream);
 
         if (request.getTitle() != null) {
             dream.setTitle(request.getTitle());
@@ -161,8 +565,20 @@ public class DreamServiceImpl implements DreamService {
             dream.setTags(request.getTags());
         }
 
+        // 只写入实际变化的列，未修改的正文与 tags JSON 不重写
+        Set<String> changed = UPDATABLE_COLUMNS.keySet().stream()
+                .filter(field -> !Objects.equals(UPDATABLE_COLUMNS.get(field).apply(before),
+                        UPDATABLE_COLUMNS.get(field).apply(dream)))
+                .collect(Collectors.toSet());
+        if (changed.isEmpty()) {
+            return dream;
+        }
+
         dream.setUpdatedAt(LocalDateTime.now());
-        dreamMapper.updateById(dream);
+        dreamMapper.update(null, updateOf(dreamId, userId, dream, changed));
+        dreamStatisticsService.recordChange(before, dream);
+        dreamIndexService.onDreamSaved(dream);
+        dreamDetailCache.invalidate(dreamId);
 
         log.info("用户 {} 更新了梦境记录: {}", userId, dreamId);
 
@@ -171,34 +587,134 @@ public class DreamServiceImpl implements DreamService {
 
     @Override
     @Transactional
+    @AuditLog(action = "DREAM_UPDATE", targetType = "DREAM", targetId = "#dreamId", userId = "#userId")
+    public Set<String> patchDream(Long dreamId, Long userId, DreamPatchRequest request) {
+        Set<String> fields = request.getPresentFields();
+        if (fields.isEmpty()) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "没有需要更新的字段");
+        }
+        requirePresentValue(request, "title", StringUtils.hasText(request.getTitle()), "梦境标题不能为空");
+        requirePresentValue(request, "content", StringUtils.hasText(request.getContent()), "梦境内容不能为空");
+        requirePresentValue(request, "dreamDate", request.getDreamDate() != null, "做梦日期不能为空");
+        requirePresentValue(request, "isFavorite", request.getIsFavorite() != null, "收藏状态不能为空");
+        requirePresentValue(request, "isPrivate", request.getIsPrivate() != null, "私密状态不能为空");
+
+        Dream values = new Dream();
+        BeanUtils.copyProperties(request, values);
+
+        // 统计汇总按旧值计算增量：仅当修改了统计维度相关的列时锁定读取这些列
+        Dream before = null;
+        if (fields.stream().anyMatch(STAT_FIELDS::contains)) {
+            before = dreamMapper.selectStatFieldsForUpdate(dreamId, userId);
+            if (before == null) {
+                throw new BusinessException(ErrorCode.DREAM_NOT_FOUND, "梦境记录不存在");
+            }
+        }
+
+        values.setUpdatedAt(LocalDateTime.now());
+        if (dreamMapper.update(null, updateOf(dreamId, userId, values, fields)) == 0) {
+            throw new BusinessException(ErrorCode.DREAM_NOT_FOUND, "梦境记录不存在");
+        }
+
+        if (before != null) {
+            Dream after = snapshot(before);
+            BeanWrapper source = new BeanWrapperImpl(values);
+            BeanWrapper target = new BeanWrapperImpl(after);
+            fields.stream()
+                    .filter(STAT_FIELDS::contains)
+                    .forEach(field -> target.setPropertyValue(field, source.getPropertyValue(field)));
+            dreamStatisticsService.recordChange(before, after);
+        }
+        if (fields.contains("title") || fields.contains("content") || fields.contains("dreamDate")) {
+            dreamIndexService.onDreamPatched(userId, dreamId);
+        }
+        dreamDetailCache.invalidate(dreamId);
+
+        log.info("用户 {} 部分更新了梦境记录: {}, 字段: {}", userId, dreamId, fields);
+        return fields;
+    }
+
+    private static void requirePresentValue(DreamPatchRequest request, String field, boolean valid, String message) {
+        if (request.has(field) && !valid) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, message);
+        }
+    }
+
+    /**
+     * 只设置给定字段对应列的更新语句，WHERE 同时匹配 id 与 user_id
+     */
+    private static LambdaUpdateWrapper<Dream> updateOf(Long dreamId, Long userId, Dream values, Set<String> fields) {
+        LambdaUpdateWrapper<Dream> wrapper = new LambdaUpdateWrapper<>();
+        UPDATABLE_COLUMNS.forEach((field, column) -> {
+            if (fields.contains(field)) {
+                wrapper.set(column, column.apply(values), "tags".equals(field) ? TAGS_MAPPING : null);
+            }
+        });
+        return wrapper.set(Dream::getUpdatedAt, values.getUpdatedAt())
+                .eq(Dream::getId, dreamId)
+                .eq(Dream::getUserId, userId);
+    }
+
+    @Override
+    @Transactional
+    @AuditLog(action = "DREAM_DELETE", targetType = "DREAM", targetId = "#dreamId", userId = "#userId")
     public void deleteDream(Long dreamId, Long userId) {
         Dream dream = getDreamById(dreamId, userId);
         dreamMapper.deleteById(dream.getId());
+        dreamStatisticsService.recordChange(dream, null);
+        dreamIndexService.onDreamDeleted(userId, dreamId);
+        dreamDetailCache.invalidate(dreamId);
         log.info("用户 {} 删除了梦境记录: {}", userId, dreamId);
     }
 
     @Override
     @Transactional
+    @AuditLog(action = "DREAM_FAVORITE", targetType = "DREAM", targetId = "#dreamId", userId = "#userId")
     public boolean toggleFavorite(Long dreamId, Long userId) {
-        Dream dream = getDreamById(dreamId, userId);
-        dream.setIsFavorite(!Boolean.TRUE.equals(dream.getIsFavorite()));
-        dream.setUpdatedAt(LocalDateTime.now());
-        dreamMapper.updateById(dream);
-        return dream.getIsFavorite();
+        if (dreamMapper.toggleFavorite(dreamId, userId, LocalDateTime.now()) == 0) {
+            throw new BusinessException(ErrorCode.DREAM_NOT_FOUND, "梦境记录不存在");
+        }
+        // 行锁由切换语句持有，读到的是本事务写入的新值
+        boolean favorite = Boolean.TRUE.equals(dreamMapper.selectIsFavorite(dreamId));
+
+        Dream before = new Dream();
+        before.setUserId(userId);
+        before.setIsFavorite(!favorite);
+        Dream after = snapshot(before);
+        after.setIsFavorite(favorite);
+        dreamStatisticsService.recordChange(before, after);
+        dreamDetailCache.invalidate(dreamId);
+        return favorite;
     }
 
     @Override
-    public List<Dream> getFavoritesByUserId(Long userId) {
+    public List<DreamListItem> getFavoritesByUserId(Long userId) {
         LambdaQueryWrapper<Dream> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(Dream::getUserId, userId)
                 .eq(Dream::getIsFavorite, true)
-                .orderByDesc(Dream::getDreamDate, Dream::getCreatedAt);
-        return dreamMapper.selectList(queryWrapper);
+                .orderByDesc(Dream::getDreamDate, Dream::getCreatedAt, Dream::getId);
+        return dreamMapper.selectListItems(queryWrapper);
+    }
+
+    /**
+     * 修改前的副本，用于计算统计增量
+     */
+    private static Dream snapshot(Dream dream) {
+        Dream copy = new Dream();
+        BeanUtils.copyProperties(dream, copy);
+        return copy;
+    }
+
+    @Override
+    @AuditLog(action = "AI_SUMMARY_REGENERATE", targetType = "DREAM", targetId = "#dreamId", userId = "#userId")
+    public AISummaryTicket regenerateAISummary(Long dreamId, Long userId, boolean force) {
+        Dream dream = getDreamById(dreamId, userId);
+        return aiSummaryService.generateSummaryAsync(dream, force);
     }
 
     @Override
-    public void regenerateAISummary(Long dreamId, Long userId) {
+    public SseEmitter streamAISummary(Long dreamId, Long userId, boolean force) {
         Dream dream = getDreamById(dreamId, userId);
-        aiSummaryService.generateSummaryAsync(dream);
+        return aiSummaryService.streamSummary(dream, force);
     }
 }
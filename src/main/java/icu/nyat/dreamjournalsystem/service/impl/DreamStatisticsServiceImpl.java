@@ -0,0 +1,264 @@
+package icu.nyat.dreamjournalsystem.service.impl;
+
+import icu.nyat.dreamjournalsystem.dto.response.DreamStatistics;
+import icu.nyat.dreamjournalsystem.entity.Dream;
+import icu.nyat.dreamjournalsystem.entity.UserDreamStat;
+import icu.nyat.dreamjournalsystem.entity.UserDreamStat.Dimension;
+import icu.nyat.dreamjournalsystem.exception.BusinessException;
+import icu.nyat.dreamjournalsystem.exception.ErrorCode;
+import icu.nyat.dreamjournalsystem.mapper.UserDreamStatMapper;
+import icu.nyat.dreamjournalsystem.mapper.UserDreamStatMapper.StatDelta;
+import icu.nyat.dreamjournalsystem.mapper.UserMapper;
+import icu.nyat.dreamjournalsystem.service.DreamStatisticsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * 梦境统计服务实现
+ * <p>
+ * 统计结果保存在 user_dream_stats 汇总表中，梦境写入时在同一事务内按增量累加，
+ * 读取时只查询汇总行，不扫描 dreams 表。定时任务从 dreams 重建汇总以修复可能的漂移。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DreamStatisticsServiceImpl implements DreamStatisticsService {
+
+    private final UserDreamStatMapper statMapper;
+    private final UserMapper userMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 每日分布默认天数与最大天数
+     */
+    @Value("${dream.stats.default-days:30}")
+    private int defaultDays;
+
+    @Value("${dream.stats.max-days:366}")
+    private int maxDays;
+
+    @Value("${dream.stats.rebuild-batch-size:500}")
+    private int rebuildBatchSize;
+
+    /**
+     * 升级后首次启动时回填汇总表
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        try {
+            if (statMapper.needsBackfill()) {
+                log.info("梦境统计汇总表为空，开始回填");
+                rebuildAll();
+            }
+        } catch (Exception e) {
+            log.warn("回填梦境统计汇总表失败，等待定时重建: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public DreamStatistics getStatistics(Long userId, LocalDate startDate, LocalDate endDate) {
+        LocalDate to = endDate != null ? endDate : LocalDate.now();
+        LocalDate from = startDate != null ? startDate : to.minusDays(defaultDays - 1L);
+        if (from.isAfter(to)) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "开始日期不能晚于结束日期");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxDays) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "统计日期范围不能超过" + maxDays + "天");
+        }
+
+        Map<Dimension, Map<String, Long>> summary = new EnumMap<>(Dimension.class);
+        for (UserDreamStat stat : statMapper.selectSummary(userId)) {
+            summary.computeIfAbsent(stat.getDimension(), d -> new TreeMap<>())
+                    .put(stat.getBucket(), stat.getCnt().longValue());
+        }
+
+        Map<String, Long> days = new TreeMap<>();
+        for (UserDreamStat stat : statMapper.selectDays(userId, from.toString(), to.toString())) {
+            days.put(stat.getBucket(), stat.getCnt().longValue());
+        }
+        List<DreamStatistics.DayCount> frequency = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            frequency.add(new DreamStatistics.DayCount(day, days.getOrDefault(day.toString(), 0L)));
+        }
+
+        Map<String, Long> quality = bucketsOf(summary, Dimension.QUALITY);
+        Map<String, Long> vividness = bucketsOf(summary, Dimension.VIVIDNESS);
+
+        return DreamStatistics.builder()
+                .totalDreams(bucketsOf(summary, Dimension.TOTAL).getOrDefault("", 0L))
+                .totalFavorites(bucketsOf(summary, Dimension.FAVORITE).getOrDefault("", 0L))
+                .dreamsByType(bucketsOf(summary, Dimension.TYPE))
+                .dreamsByMood(bucketsOf(summary, Dimension.MOOD_AFTER))
+                .dreamsByMoodBeforeSleep(bucketsOf(summary, Dimension.MOOD_BEFORE))
+                .dreamsBySleepQuality(quality)
+                .dreamsByMonth(bucketsOf(summary, Dimension.MONTH))
+                .averageSleepQuality(average(quality, bucket -> qualityScore(Dream.SleepQuality.valueOf(bucket))))
+                .averageVividness(average(vividness, Integer::parseInt))
+                .dreamFrequency(frequency)
+                .build();
+    }
+
+    @Override
+    public void recordChange(Dream before, Dream after) {
+        Dream dream = after != null ? after : before;
+        if (dream == null) {
+            return;
+        }
+
+        // 按主键排序，并发事务以相同顺序锁定汇总行，避免死锁
+        Map<StatKey, Integer> deltas = new TreeMap<>();
+        if (before != null) {
+            keysOf(before).forEach(key -> deltas.merge(key, -1, Integer::sum));
+        }
+        if (after != null) {
+            keysOf(after).forEach(key -> deltas.merge(key, 1, Integer::sum));
+        }
+        applyDeltas(dream.getUserId(), deltas);
+    }
+
+    @Override
+    public void recordCreated(Long userId, Collection<Dream> dreams) {
+        Map<StatKey, Integer> deltas = new TreeMap<>();
+        for (Dream dream : dreams) {
+            keysOf(dream).forEach(key -> deltas.merge(key, 1, Integer::sum));
+        }
+        applyDeltas(userId, deltas);
+    }
+
+    private void applyDeltas(Long userId, Map<StatKey, Integer> deltas) {
+        deltas.values().removeIf(cnt -> cnt == 0);
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<StatDelta> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((key, cnt) -> rows.add(new StatDelta(key.dimension(), key.bucket(), cnt)));
+        statMapper.applyDeltas(userId, rows);
+    }
+
+    @Override
+    @Transactional
+    public void rebuild(Long userId) {
+        doRebuild(userId);
+    }
+
+    /**
+     * 定期重建全部用户的汇总数据，每个用户单独一个事务
+     */
+    @Override
+    @Scheduled(cron = "${dream.stats.rebuild-cron:0 30 3 * * *}")
+    public void rebuildAll() {
+        long start = System.currentTimeMillis();
+        long afterId = 0;
+        int users = 0;
+        List<Long> batch;
+        do {
+            batch = userMapper.selectIdsAfter(afterId, rebuildBatchSize);
+            for (Long userId : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> doRebuild(userId));
+                    users++;
+                } catch (Exception e) {
+                    log.error("重建用户 {} 的梦境统计失败", userId, e);
+                }
+            }
+            if (!batch.isEmpty()) {
+                afterId = batch.get(batch.size() - 1);
+            }
+        } while (batch.size() == rebuildBatchSize);
+        log.info("梦境统计重建完成，用户数: {}，耗时: {}ms", users, System.currentTimeMillis() - start);
+    }
+
+    private void doRebuild(Long userId) {
+        statMapper.deleteByUserId(userId);
+        statMapper.rebuildFromDreams(userId);
+    }
+
+    /**
+     * 梦境计入的全部统计分组，与 UserDreamStatMapper#rebuildFromDreams 的聚合口径一致
+     */
+    private static List<StatKey> keysOf(Dream dream) {
+        List<StatKey> keys = new ArrayList<>(9);
+        keys.add(new StatKey(Dimension.TOTAL, ""));
+        if (Boolean.TRUE.equals(dream.getIsFavorite())) {
+            keys.add(new StatKey(Dimension.FAVORITE, ""));
+        }
+        if (dream.getDreamType() != null) {
+            keys.add(new StatKey(Dimension.TYPE, dream.getDreamType().name()));
+        }
+        if (dream.getMoodBeforeSleep() != null) {
+            keys.add(new StatKey(Dimension.MOOD_BEFORE, dream.getMoodBeforeSleep().name()));
+        }
+        if (dream.getMoodAfterWake() != null) {
+            keys.add(new StatKey(Dimension.MOOD_AFTER, dream.getMoodAfterWake().name()));
+        }
+        if (dream.getSleepQuality() != null) {
+            keys.add(new StatKey(Dimension.QUALITY, dream.getSleepQuality().name()));
+        }
+        if (dream.getVividness() != null) {
+            keys.add(new StatKey(Dimension.VIVIDNESS, String.valueOf(dream.getVividness())));
+        }
+        if (dream.getDreamDate() != null) {
+            keys.add(new StatKey(Dimension.MONTH, YearMonth.from(dream.getDreamDate()).toString()));
+            keys.add(new StatKey(Dimension.DAY, dream.getDreamDate().toString()));
+        }
+        return keys;
+    }
+
+    private static Map<String, Long> bucketsOf(Map<Dimension, Map<String, Long>> summary, Dimension dimension) {
+        return summary.getOrDefault(dimension, new TreeMap<>());
+    }
+
+    /**
+     * 按分组计数求加权平均，保留一位小数，无数据时返回 null
+     */
+    private static Double average(Map<String, Long> buckets, ToIntFunction<String> score) {
+        long count = 0;
+        long sum = 0;
+        for (Map.Entry<String, Long> entry : buckets.entrySet()) {
+            count += entry.getValue();
+            sum += score.applyAsInt(entry.getKey()) * entry.getValue();
+        }
+        return count > 0 ? Math.round(sum * 10.0 / count) / 10.0 : null;
+    }
+
+    private static int qualityScore(Dream.SleepQuality quality) {
+        return switch (quality) {
+            case EXCELLENT -> 5;
+            case GOOD -> 4;
+            case FAIR -> 3;
+            case POOR -> 2;
+            case TERRIBLE -> 1;
+        };
+    }
+
+    /**
+     * 汇总行主键（用户内）
+     */
+    private record StatKey(Dimension dimension, String bucket) implements Comparable<StatKey> {
+
+        @Override
+        public int compareTo(StatKey other) {
+            int cmp = dimension.name().compareTo(other.dimension.name());
+            return cmp != 0 ? cmp : bucket.compareTo(other.bucket);
+        }
+    }
+}
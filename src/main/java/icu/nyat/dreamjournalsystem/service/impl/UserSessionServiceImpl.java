@@ -0,0 +1,149 @@
+package icu.nyat.dreamjournalsystem.service.impl;
+
+import icu.nyat.dreamjournalsystem.entity.UserSession;
+import icu.nyat.dreamjournalsystem.exception.BusinessException;
+import icu.nyat.dreamjournalsystem.exception.ErrorCode;
+import icu.nyat.dreamjournalsystem.mapper.UserSessionMapper;
+import icu.nyat.dreamjournalsystem.service.UserSessionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * 用户会话服务实现
+ * 刷新令牌为 256 位随机串，数据库仅保存其 SHA-256 摘要，每次刷新都会轮换。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserSessionServiceImpl implements UserSessionService {
+
+    private static final int TOKEN_BYTES = 32;
+    private static final int DEVICE_INFO_MAX_LENGTH = 255;
+
+    private final UserSessionMapper userSessionMapper;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Value("${jwt.refresh-token-expiration}")
+    private Long refreshTokenExpiration;
+
+    @Value("${security.session-reaper.batch-size:1000}")
+    private int reaperBatchSize;
+
+    @Value("${security.session-reaper.max-batches:100}")
+    private int reaperMaxBatches;
+
+    @Value("${security.session-reaper.pause-ms:50}")
+    private long reaperPauseMs;
+
+    @Override
+    public IssuedSession createSession(Long userId, String deviceInfo, String ipAddress) {
+        String refreshToken = newToken();
+        LocalDateTime expiresAt = nextExpiry();
+
+        UserSession session = new UserSession();
+        session.setUserId(userId);
+        session.setTokenHash(hash(refreshToken));
+        session.setDeviceInfo(StringUtils.truncate(deviceInfo, DEVICE_INFO_MAX_LENGTH));
+        session.setIpAddress(ipAddress);
+        session.setExpiresAt(expiresAt);
+        session.setCreatedAt(LocalDateTime.now());
+        userSessionMapper.insert(session);
+
+        return new IssuedSession(session.getId(), userId, refreshToken, expiresAt);
+    }
+
+    @Override
+    public IssuedSession rotate(String refreshToken) {
+        if (!StringUtils.hasText(refreshToken)) {
+            throw new BusinessException(ErrorCode.TOKEN_INVALID, "刷新令牌无效");
+        }
+
+        String oldHash = hash(refreshToken);
+        UserSession session = userSessionMapper.findByTokenHash(oldHash);
+        if (session == null) {
+            throw new BusinessException(ErrorCode.TOKEN_INVALID, "刷新令牌无效");
+        }
+        if (session.getExpiresAt().isBefore(LocalDateTime.now())) {
+            userSessionMapper.deleteById(session.getId());
+            throw new BusinessException(ErrorCode.TOKEN_EXPIRED, "刷新令牌已过期");
+        }
+
+        String newToken = newToken();
+        LocalDateTime expiresAt = nextExpiry();
+        if (userSessionMapper.rotate(session.getId(), oldHash, hash(newToken), expiresAt) == 0) {
+            // 同一令牌被并发使用，已由另一请求完成轮换
+            throw new BusinessException(ErrorCode.TOKEN_INVALID, "刷新令牌已被使用");
+        }
+
+        return new IssuedSession(session.getId(), session.getUserId(), newToken, expiresAt);
+    }
+
+    @Override
+    public void deleteSession(Long sessionId) {
+        userSessionMapper.deleteById(sessionId);
+    }
+
+    @Override
+    public void deleteAllSessions(Long userId) {
+        int deleted = userSessionMapper.deleteByUserId(userId);
+        log.info("用户 {} 的 {} 个会话已删除", userId, deleted);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${security.session-reaper.interval:PT10M}")
+    public int purgeExpiredSessions() {
+        int total = 0;
+        for (int i = 0; i < reaperMaxBatches; i++) {
+            int deleted = userSessionMapper.deleteExpiredBatch(reaperBatchSize);
+            total += deleted;
+            if (deleted < reaperBatchSize) {
+                break;
+            }
+            // 批次间让出，避免持续占用 InnoDB 锁与 IO
+            try {
+                Thread.sleep(reaperPauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("已清理过期会话 {} 个", total);
+        }
+        return total;
+    }
+
+    private LocalDateTime nextExpiry() {
+        return LocalDateTime.now().plusNanos(refreshTokenExpiration * 1_000_000);
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * 刷新令牌摘要（64位十六进制，对应 user_sessions.token_hash）
+     */
+    private static String hash(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package icu.nyat.dreamjournalsystem.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 流式 CSV 读取器（RFC 4180）
+ * 逐条读取记录，支持双引号包裹的字段、字段内的逗号/换行以及 "" 转义，不缓冲整个输入。
+ * 不是线程安全的。
+ */
+public class CsvReader {
+
+    private final Reader reader;
+    private final int maxFieldLength;
+
+    private int line = 1;
+    private int recordLine;
+    private int pending = -2;
+
+    /**
+     * @param reader         输入（调用方负责缓冲与关闭）
+     * @param maxFieldLength 单个字段最大字符数，超过时抛出 IOException
+     */
+    public CsvReader(Reader reader, int maxFieldLength) {
+        this.reader = reader;
+        this.maxFieldLength = maxFieldLength;
+    }
+
+    /**
+     * 读取下一条记录，输入结束时返回 null；空行返回空列表
+     */
+    public List<String> next() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStarted = false;
+
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("第 " + recordLine + " 行的引号未闭合");
+                }
+                if (c == '"') {
+                    int nextChar = read();
+                    if (nextChar == '"') {
+                        append(field, '"');
+                    } else {
+                        quoted = false;
+                        c = nextChar;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    append(field, (char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+                fieldStarted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                fieldStarted = true;
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    int nextChar = read();
+                    if (nextChar != '\n') {
+                        unread(nextChar);
+                    }
+                }
+                if (c != -1) {
+                    line++;
+                }
+                if (fieldStarted || field.length() > 0) {
+                    fields.add(field.toString());
+                }
+                return fields;
+            } else {
+                append(field, (char) c);
+                fieldStarted = true;
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * 最近一次返回的记录所在的起始行号（从 1 开始）
+     */
+    public int getRecordLine() {
+        return recordLine;
+    }
+
+    private void append(StringBuilder field, char c) throws IOException {
+        if (field.length() >= maxFieldLength) {
+            throw new IOException("第 " + recordLine + " 行的字段超过 " + maxFieldLength + " 个字符");
+        }
+        field.append(c);
+    }
+
+    private int read() throws IOException {
+        if (pending != -2) {
+            int c = pending;
+            pending = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private void unread(int c) {
+        pending = c;
+    }
+}
@@ -0,0 +1,54 @@
+package icu.nyat.dreamjournalsystem.util;
+
+import icu.nyat.dreamjournalsystem.dto.response.DreamDetailResponse;
+import icu.nyat.dreamjournalsystem.dto.response.DreamListItem;
+import icu.nyat.dreamjournalsystem.exception.BusinessException;
+import icu.nyat.dreamjournalsystem.exception.ErrorCode;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 梦境列表游标
+ * 对应排序键 (dream_date DESC, created_at DESC, id DESC) 中最后一条记录的位置，
+ * 对外编码为不透明的 base64url 字符串。
+ *
+ * @param dreamDate 做梦日期
+ * @param createdAt 创建时间
+ * @param id        梦境ID
+ */
+public record DreamCursor(LocalDate dreamDate, LocalDateTime createdAt, Long id) {
+
+    private static final String SEPARATOR = "|";
+
+    public static DreamCursor of(DreamListItem item) {
+        return new DreamCursor(item.getDreamDate(), item.getCreatedAt(), item.getId());
+    }
+
+    public static DreamCursor of(DreamDetailResponse detail) {
+        return new DreamCursor(detail.getDreamDate(), detail.getCreatedAt(), detail.getId());
+    }
+
+    public String encode() {
+        String raw = dreamDate + SEPARATOR + createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标，格式错误时抛出参数验证异常
+     */
+    public static DreamCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException(raw);
+            }
+            return new DreamCursor(LocalDate.parse(parts[0]), LocalDateTime.parse(parts[1]), Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "无效的分页游标");
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package icu.nyat.dreamjournalsystem.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 搜索结果片段提取
+ */
+public final class SnippetUtils {
+
+    private static final String ELLIPSIS = "…";
+
+    private SnippetUtils() {
+    }
+
+    /**
+     * 截取关键词首次出现位置附近的文本
+     * 关键词按空白拆分；整词未命中时按二元组查找（与 ngram 全文索引的匹配粒度一致），均未命中时取开头。
+     *
+     * @param length 片段最大长度（不含省略号）
+     */
+    public static String extract(String content, String keyword, int length) {
+        if (content == null || content.isEmpty()) {
+            return content;
+        }
+        int hit = findFirstHit(content.toLowerCase(Locale.ROOT), keyword.toLowerCase(Locale.ROOT));
+        if (content.length() <= length) {
+            return content;
+        }
+        int start = hit < 0 ? 0 : Math.max(0, hit - length / 4);
+        int end = Math.min(content.length(), start + length);
+        start = Math.max(0, end - length);
+        return (start > 0 ? ELLIPSIS : "") + content.substring(start, end) + (end < content.length() ? ELLIPSIS : "");
+    }
+
+    private static int findFirstHit(String content, String keyword) {
+        List<String> terms = new ArrayList<>();
+        for (String term : keyword.trim().split("\\s+")) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        int hit = firstIndexOf(content, terms);
+        if (hit >= 0) {
+            return hit;
+        }
+        List<String> bigrams = new ArrayList<>();
+        for (String term : terms) {
+            for (int i = 0; i + 2 <= term.length(); i++) {
+                bigrams.add(term.substring(i, i + 2));
+            }
+        }
+        return firstIndexOf(content, bigrams);
+    }
+
+    private static int firstIndexOf(String content, List<String> terms) {
+        int first = -1;
+        for (String term : terms) {
+            int index = content.indexOf(term);
+            if (index >= 0 && (first < 0 || index < first)) {
+                first = index;
+            }
+        }
+        return first;
+    }
+}
@@ -26,6 +26,7 @@ CREATE TABLE IF NOT EXISTS users (
     last_login_ip VARCHAR(50) DEFAULT NULL COMMENT '最后登录IP',
     login_attempts INT DEFAULT 0 COMMENT '登录尝试次数',
     locked_until DATETIME DEFAULT NULL COMMENT '锁定截止时间',
+    password_changed_at DATETIME DEFAULT NULL COMMENT '最近修改密码时间',
     created_at DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     
@@ -35,6 +36,9 @@ CREATE TABLE IF NOT EXISTS users (
     INDEX idx_created_at (created_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='用户表';
 
+-- 旧版本升级：增加最近修改密码时间（新库上因列已存在而失败，可忽略）
+ALTER TABLE users ADD COLUMN password_changed_at DATETIME DEFAULT NULL COMMENT '最近修改密码时间' AFTER locked_until;
+
 -- =====================================================
 -- 梦境表
 -- =====================================================
@@ -43,6 +47,7 @@ CREATE TABLE IF NOT EXISTS dreams (
     user_id BIGINT NOT NULL COMMENT '用户ID',
     title VARCHAR(200) NOT NULL COMMENT '标题',
     content TEXT NOT NULL COMMENT '梦境内容',
+    content_preview VARCHAR(200) GENERATED ALWAYS AS (LEFT(content, 200)) STORED COMMENT '内容预览（列表查询使用，不读取 TEXT 溢出页）',
     dream_date DATE NOT NULL COMMENT '做梦日期',
     sleep_start_time TIME DEFAULT NULL COMMENT '入睡时间',
     sleep_end_time TIME DEFAULT NULL COMMENT '醒来时间',
@@ -55,17 +60,33 @@ CREATE TABLE IF NOT EXISTS dreams (
     is_private BOOLEAN DEFAULT TRUE COMMENT '是否私密',
     tags JSON DEFAULT NULL COMMENT '标签列表',
     created_at DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
-    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    updated_at DATETIME(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3) COMMENT '更新时间（毫秒精度，用于详情 ETag）',
     
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
-    INDEX idx_user_id (user_id),
+    -- 列表排序与游标分页：user_id 等值 + (dream_date, created_at, id) 倒序范围扫描，同时满足外键索引
+    INDEX idx_user_date_created (user_id, dream_date, created_at, id),
     INDEX idx_dream_date (dream_date),
     INDEX idx_is_favorite (is_favorite),
     INDEX idx_dream_type (dream_type),
     INDEX idx_created_at (created_at),
-    FULLTEXT INDEX ft_content (title, content)
+    -- ngram 分词支持中文全文检索（ngram_token_size 默认 2）
+    FULLTEXT INDEX ft_content_ngram (title, content) WITH PARSER ngram
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='梦境表';
 
+-- 旧版本升级：以复合索引替换 idx_user_id（新库上因索引已存在/不存在而失败，可忽略）
+ALTER TABLE dreams ADD INDEX idx_user_date_created (user_id, dream_date, created_at, id);
+ALTER TABLE dreams DROP INDEX idx_user_id;
+
+-- 旧版本升级：默认分词器的 ft_content 无法切分中文，改为 ngram 索引（新库上两条语句均失败，可忽略）
+CREATE FULLTEXT INDEX ft_content_ngram ON dreams (title, content) WITH PARSER ngram;
+ALTER TABLE dreams DROP INDEX ft_content;
+
+-- 旧版本升级：增加内容预览生成列（MySQL 回填已有数据；新库上因列已存在而失败，可忽略）
+ALTER TABLE dreams ADD COLUMN content_preview VARCHAR(200) GENERATED ALWAYS AS (LEFT(content, 200)) STORED COMMENT '内容预览（列表查询使用，不读取 TEXT 溢出页）' AFTER content;
+
+-- 旧版本升级：updated_at 改为毫秒精度，同一秒内的多次修改也能产生不同的 ETag（已是该定义时为空操作）
+ALTER TABLE dreams MODIFY updated_at DATETIME(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3) COMMENT '更新时间（毫秒精度，用于详情 ETag）';
+
 -- =====================================================
 -- AI分析结果表
 -- =====================================================
@@ -83,24 +104,39 @@ CREATE TABLE IF NOT EXISTS ai_summaries (
     confidence_score DECIMAL(5,4) DEFAULT NULL COMMENT '置信度分数',
     tokens_used INT DEFAULT NULL COMMENT '使用的token数',
     generation_time_ms INT DEFAULT NULL COMMENT '生成耗时(毫秒)',
-    status ENUM('PENDING', 'COMPLETED', 'FAILED') DEFAULT 'PENDING' COMMENT '状态',
+    content_digest CHAR(64) DEFAULT NULL COMMENT '生成输入的SHA-256摘要(结果缓存键)',
+    cache_hit TINYINT(1) NOT NULL DEFAULT 0 COMMENT '结果是否取自缓存(未调用模型)',
+    status ENUM('PENDING', 'DEFERRED', 'COMPLETED', 'FAILED') DEFAULT 'PENDING' COMMENT '状态(DEFERRED: 暂时失败，等待退避后重试)',
     error_message TEXT DEFAULT NULL COMMENT '错误信息',
     created_at DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
-    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    updated_at DATETIME(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3) COMMENT '更新时间（毫秒精度，用于详情 ETag）',
     
     FOREIGN KEY (dream_id) REFERENCES dreams(id) ON DELETE CASCADE,
     INDEX idx_dream_id (dream_id),
     INDEX idx_status (status),
+    INDEX idx_content_digest (content_digest),
     INDEX idx_created_at (created_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='AI分析结果表';
 
+-- 旧版本升级：updated_at 改为毫秒精度（已是该定义时为空操作）
+ALTER TABLE ai_summaries MODIFY updated_at DATETIME(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3) COMMENT '更新时间（毫秒精度，用于详情 ETag）';
+
+-- 旧版本升级：状态增加 DEFERRED（已是该定义时为空操作）
+ALTER TABLE ai_summaries MODIFY status ENUM('PENDING', 'DEFERRED', 'COMPLETED', 'FAILED') DEFAULT 'PENDING' COMMENT '状态(DEFERRED: 暂时失败，等待退避后重试)';
+
+-- 旧版本升级：增加结果缓存摘要与命中标记（新库上因列已存在而失败，可忽略）
+ALTER TABLE ai_summaries
+    ADD COLUMN content_digest CHAR(64) DEFAULT NULL COMMENT '生成输入的SHA-256摘要(结果缓存键)' AFTER generation_time_ms,
+    ADD COLUMN cache_hit TINYINT(1) NOT NULL DEFAULT 0 COMMENT '结果是否取自缓存(未调用模型)' AFTER content_digest,
+    ADD INDEX idx_content_digest (content_digest);
+
 -- =====================================================
 -- 用户会话表 (用于JWT令牌管理)
 -- =====================================================
 CREATE TABLE IF NOT EXISTS user_sessions (
     id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '会话ID',
     user_id BIGINT NOT NULL COMMENT '用户ID',
-    refresh_token VARCHAR(500) NOT NULL COMMENT '刷新令牌',
+    token_hash CHAR(64) CHARACTER SET ascii NOT NULL COMMENT '刷新令牌SHA-256摘要(hex)',
     device_info VARCHAR(255) DEFAULT NULL COMMENT '设备信息',
     ip_address VARCHAR(50) DEFAULT NULL COMMENT 'IP地址',
     expires_at DATETIME NOT NULL COMMENT '过期时间',
@@ -108,10 +144,18 @@ CREATE TABLE IF NOT EXISTS user_sessions (
     
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
     INDEX idx_user_id (user_id),
-    INDEX idx_refresh_token (refresh_token(255)),
+    UNIQUE INDEX uk_token_hash (token_hash),
     INDEX idx_expires_at (expires_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='用户会话表';
 
+-- 旧版本升级：refresh_token 明文列 + 前缀索引改为定长摘要唯一索引
+-- （旧表从未写入数据；新库上该语句因索引不存在而失败，可忽略）
+ALTER TABLE user_sessions
+    DROP INDEX idx_refresh_token,
+    DROP COLUMN refresh_token,
+    ADD COLUMN token_hash CHAR(64) CHARACTER SET ascii NOT NULL COMMENT '刷新令牌SHA-256摘要(hex)' AFTER user_id,
+    ADD UNIQUE INDEX uk_token_hash (token_hash);
+
 -- =====================================================
 -- 操作日志表
 -- =====================================================
@@ -130,3 +174,37 @@ CREATE TABLE IF NOT EXISTS operation_logs (
     INDEX idx_action (action),
     INDEX idx_created_at (created_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='操作日志表';
+
+-- =====================================================
+-- 用户梦境统计汇总表（写入梦境时按增量维护，定期从 dreams 重建）
+-- =====================================================
+CREATE TABLE IF NOT EXISTS user_dream_stats (
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    dimension VARCHAR(20) NOT NULL COMMENT '统计维度(TOTAL/FAVORITE/TYPE/MOOD_BEFORE/MOOD_AFTER/QUALITY/VIVIDNESS/MONTH/DAY)',
+    bucket VARCHAR(20) NOT NULL DEFAULT '' COMMENT '分组值（枚举名、yyyy-MM、yyyy-MM-dd，总计类为空串）',
+    cnt INT NOT NULL DEFAULT 0 COMMENT '梦境数量',
+
+    PRIMARY KEY (user_id, dimension, bucket),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='用户梦境统计汇总表';
+
+-- =====================================================
+-- AI总结任务表（持久化任务队列，各节点按租约领取）
+-- =====================================================
+CREATE TABLE IF NOT EXISTS ai_jobs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '任务ID',
+    dream_id BIGINT NOT NULL UNIQUE COMMENT '梦境ID（每个梦境一个任务，重新生成时复用）',
+    status ENUM('QUEUED', 'RUNNING', 'SUCCEEDED', 'DEAD') NOT NULL DEFAULT 'QUEUED' COMMENT '状态(DEAD: 死信)',
+    priority TINYINT NOT NULL DEFAULT 0 COMMENT '优先级(0: 交互请求, 1: 批量导入)，越小越先执行',
+    attempts INT NOT NULL DEFAULT 0 COMMENT '已领取次数',
+    available_at DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) COMMENT '最早可领取时间（重试退避）',
+    lease_owner VARCHAR(100) DEFAULT NULL COMMENT '持有租约的节点',
+    lease_until DATETIME(3) DEFAULT NULL COMMENT '租约到期时间',
+    last_error TEXT DEFAULT NULL COMMENT '最近一次错误',
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+
+    FOREIGN KEY (dream_id) REFERENCES dreams(id) ON DELETE CASCADE,
+    INDEX idx_claim (status, priority, available_at),
+    INDEX idx_lease (status, lease_until)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='AI总结任务表';
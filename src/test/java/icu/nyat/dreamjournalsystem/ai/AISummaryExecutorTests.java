@@ -0,0 +1,78 @@
+package icu.nyat.dreamjournalsystem.ai;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AI 总结线程池容量与估算测试
+ */
+class AISummaryExecutorTests {
+
+    @Test
+    void tracksSlotsAndRejectsWhenFull() throws InterruptedException {
+        AISummaryExecutor executor = new AISummaryExecutor(new SimpleMeterRegistry(), 1, 2, Duration.ofSeconds(10));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable blocking = () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        try {
+            assertEquals(1, executor.availableSlots());
+            executor.submit(1L, blocking);
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertEquals(0, executor.availableSlots());
+
+            executor.submit(2L, blocking);
+            executor.submit(3L, blocking);
+            assertThrows(RejectedExecutionException.class, () -> executor.submit(4L, blocking));
+            assertEquals(List.of(2L, 3L), executor.shutdown());
+        } finally {
+            release.countDown();
+            executor.close();
+        }
+    }
+
+    @Test
+    void reservationsShareSlotsWithThePool() {
+        AISummaryExecutor executor = new AISummaryExecutor(new SimpleMeterRegistry(), 2, 2, Duration.ofSeconds(10));
+        try {
+            assertTrue(executor.tryReserve());
+            assertEquals(1, executor.availableSlots());
+            assertTrue(executor.tryReserve());
+            assertEquals(0, executor.availableSlots());
+            assertFalse(executor.tryReserve());
+
+            executor.release();
+            assertEquals(1, executor.availableSlots());
+        } finally {
+            executor.close();
+        }
+    }
+
+    @Test
+    void estimatesByRoundsOfConcurrency() {
+        AISummaryExecutor executor = new AISummaryExecutor(new SimpleMeterRegistry(), 2, 4, Duration.ofSeconds(10));
+        try {
+            assertEquals(10, executor.estimate(0).estimatedSeconds());
+            assertEquals(20, executor.estimate(1).estimatedSeconds());
+            assertEquals(20, executor.estimate(2).estimatedSeconds());
+            assertEquals(30, executor.estimate(3).estimatedSeconds());
+        } finally {
+            executor.close();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package icu.nyat.dreamjournalsystem.ai;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 流式 JSON 字段解析测试
+ */
+class JsonFieldStreamParserTests {
+
+    private static final String CONTENT = "```json\n{\"summary\": \"梦见\\\"海\\\"\\n\\u6d77边\", "
+            + "\"keywords\": {\"primary\": [\"海\", \"}\"], \"secondary\": []}, "
+            + "\"intensity\": 0.8, \"advice\": \"多休息\"}\n```";
+
+    @Test
+    void streamsTextAndEmitsCompleteValuesAtAnySplit() {
+        for (int size = 1; size <= CONTENT.length(); size++) {
+            Recorder recorder = new Recorder();
+            JsonFieldStreamParser parser = new JsonFieldStreamParser(recorder);
+            for (int from = 0; from < CONTENT.length(); from += size) {
+                parser.feed(CONTENT.substring(from, Math.min(from + size, CONTENT.length())));
+            }
+
+            assertTrue(parser.isDone(), "split " + size);
+            assertEquals("梦见\"海\"\n海边", recorder.text.get("summary"), "split " + size);
+            assertEquals("多休息", recorder.text.get("advice"), "split " + size);
+            assertEquals(List.of("keywords={\"primary\": [\"海\", \"}\"], \"secondary\": []}", "intensity=0.8"),
+                    recorder.values, "split " + size);
+        }
+    }
+
+    @Test
+    void mergesDeltasWithinOneChunk() {
+        Recorder recorder = new Recorder();
+        JsonFieldStreamParser parser = new JsonFieldStreamParser(recorder);
+        parser.feed("{\"summary\": \"一二");
+        parser.feed("三\"}");
+
+        assertEquals(List.of("一二", "三"), recorder.deltas);
+        assertTrue(parser.isDone());
+    }
+
+    private static final class Recorder implements JsonFieldStreamParser.Listener {
+
+        private final Map<String, String> text = new LinkedHashMap<>();
+        private final List<String> deltas = new ArrayList<>();
+        private final List<String> values = new ArrayList<>();
+
+        @Override
+        public void onText(String field, String delta) {
+            text.merge(field, delta, String::concat);
+            deltas.add(delta);
+        }
+
+        @Override
+        public void onValue(String field, String json) {
+            values.add(field + "=" + json);
+        }
+    }
+}
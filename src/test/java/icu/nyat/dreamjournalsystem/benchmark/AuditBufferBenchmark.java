@@ -0,0 +1,74 @@
+package icu.nyat.dreamjournalsystem.benchmark;
+
+import icu.nyat.dreamjournalsystem.util.RingBuffer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 审计缓冲吞吐基准：4 个请求线程写入、1 个写入线程取出
+ * <p>
+ * 对比无锁 RingBuffer 与基于锁的 ArrayBlockingQueue（均为非阻塞 offer/poll，满时丢弃）。
+ * <p>
+ * 运行：mvn test-compile 后执行本类 main 方法（测试类路径）
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Group)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuditBufferBenchmark {
+
+    private static final int CAPACITY = 8192;
+    private static final Object EVENT = new Object();
+
+    private RingBuffer<Object> ringBuffer;
+    private ArrayBlockingQueue<Object> blockingQueue;
+
+    @Setup
+    public void setup() {
+        ringBuffer = new RingBuffer<>(CAPACITY);
+        blockingQueue = new ArrayBlockingQueue<>(CAPACITY);
+    }
+
+    @Benchmark
+    @Group("ringBuffer")
+    @GroupThreads(4)
+    public boolean ringBufferOffer() {
+        return ringBuffer.offer(EVENT);
+    }
+
+    @Benchmark
+    @Group("ringBuffer")
+    @GroupThreads(1)
+    public Object ringBufferPoll() {
+        return ringBuffer.poll();
+    }
+
+    @Benchmark
+    @Group("blockingQueue")
+    @GroupThreads(4)
+    public boolean blockingQueueOffer() {
+        return blockingQueue.offer(EVENT);
+    }
+
+    @Benchmark
+    @Group("blockingQueue")
+    @GroupThreads(1)
+    public Object blockingQueuePoll() {
+        return blockingQueue.poll();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AuditBufferBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,136 @@
+package icu.nyat.dreamjournalsystem.benchmark;
+
+import icu.nyat.dreamjournalsystem.dto.response.DreamSearchResult;
+import icu.nyat.dreamjournalsystem.entity.Dream;
+import icu.nyat.dreamjournalsystem.mapper.DreamMapper;
+import icu.nyat.dreamjournalsystem.search.DreamIndexService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.util.unit.DataSize;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 即时搜索基准：10k 条梦境的用户，内存倒排索引 vs 逐行子串匹配
+ * <p>
+ * likeScan 在 JVM 内对全部标题和正文做 contains，等价于 {@code title LIKE '%kw%' OR content LIKE '%kw%'}
+ * 的逐行比较成本，且不含网络往返与 InnoDB 读取，是 SQL LIKE 路径的下限。
+ * <p>
+ * 运行：mvn test-compile 后执行本类 main 方法（测试类路径）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DreamIndexBenchmark {
+
+    private static final int DREAMS = 10_000;
+    private static final long USER_ID = 1L;
+    private static final String[] CJK_WORDS = {
+            "飞翔", "大海", "森林", "考试", "迟到", "家人", "学校", "追逐", "坠落", "城市",
+            "朋友", "黑暗", "阳光", "雨天", "火车", "迷路", "猫咪", "高楼", "电梯", "河流",
+            "老师", "同学", "山顶", "沙漠", "月亮", "星空", "草原", "医院", "厨房", "花园"
+    };
+    private static final String[] LATIN_WORDS = {
+            "flying", "ocean", "forest", "exam", "late", "family", "school", "chase", "falling", "city",
+            "friend", "dark", "sunlight", "rain", "train", "lost", "cat", "tower", "elevator", "river"
+    };
+
+    @Param({"飞翔", "考试 迟到", "eleva"})
+    public String query;
+
+    private List<Dream> dreams;
+    private DreamIndexService indexService;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        dreams = new ArrayList<>(DREAMS);
+        for (long id = 1; id <= DREAMS; id++) {
+            Dream dream = new Dream();
+            dream.setId(id);
+            dream.setUserId(USER_ID);
+            dream.setTitle(CJK_WORDS[random.nextInt(CJK_WORDS.length)] + "的梦");
+            dream.setContent(randomContent(random));
+            dream.setDreamDate(LocalDate.of(2000, 1, 1).plusDays(random.nextInt(9000)));
+            dreams.add(dream);
+        }
+
+        DreamMapper mapper = (DreamMapper) Proxy.newProxyInstance(DreamMapper.class.getClassLoader(),
+                new Class<?>[]{DreamMapper.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("streamForIndex")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    @SuppressWarnings("unchecked")
+                    ResultHandler<Dream> handler = (ResultHandler<Dream>) args[1];
+                    DefaultResultContext<Dream> context = new DefaultResultContext<>();
+                    for (Dream dream : dreams) {
+                        context.nextResultObject(dream);
+                        handler.handleResult(context);
+                    }
+                    return null;
+                });
+        indexService = new DreamIndexService(mapper, new SimpleMeterRegistry(), DataSize.ofMegabytes(256));
+        // 预先加载索引段，只测查询
+        indexService.search(USER_ID, "预热", 10);
+    }
+
+    private static String randomContent(Random random) {
+        StringBuilder content = new StringBuilder(600);
+        while (content.length() < 500) {
+            if (random.nextInt(4) == 0) {
+                content.append(' ').append(LATIN_WORDS[random.nextInt(LATIN_WORDS.length)]).append(' ');
+            } else {
+                content.append(CJK_WORDS[random.nextInt(CJK_WORDS.length)]);
+            }
+            content.append(random.nextInt(3) == 0 ? "，" : "");
+        }
+        return content.toString();
+    }
+
+    @Benchmark
+    public List<DreamSearchResult> invertedIndex() {
+        return indexService.search(USER_ID, query, 10);
+    }
+
+    @Benchmark
+    public List<Dream> likeScan() {
+        String[] terms = query.trim().split("\\s+");
+        List<Dream> matched = new ArrayList<>();
+        for (Dream dream : dreams) {
+            boolean all = true;
+            for (String term : terms) {
+                if (!dream.getTitle().contains(term) && !dream.getContent().contains(term)) {
+                    all = false;
+                    break;
+                }
+            }
+            if (all) {
+                matched.add(dream);
+            }
+        }
+        matched.sort(Comparator.comparing(Dream::getDreamDate).reversed());
+        return matched.subList(0, Math.min(10, matched.size()));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(DreamIndexBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,104 @@
+package icu.nyat.dreamjournalsystem.benchmark;
+
+import icu.nyat.dreamjournalsystem.entity.User;
+import icu.nyat.dreamjournalsystem.security.JwtClaims;
+import icu.nyat.dreamjournalsystem.security.JwtTokenProvider;
+import icu.nyat.dreamjournalsystem.security.UserPrincipal;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT 过滤器单次请求验签开销基准
+ * <p>
+ * legacyFourParses 复现改造前 JwtAuthenticationFilter 的调用链：每次解析都重建密钥和解析器，
+ * 一个请求共解析四次。
+ * <p>
+ * 运行：mvn test-compile 后执行本类 main 方法（测试类路径）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-must-be-at-least-32-characters-long-for-hs256";
+
+    private JwtTokenProvider uncachedProvider;
+    private JwtTokenProvider cachedProvider;
+    private String token;
+
+    @Setup
+    public void setup() {
+        uncachedProvider = newProvider(false);
+        cachedProvider = newProvider(true);
+        token = uncachedProvider.generateAccessToken(
+                new UserPrincipal(42L, "benchmark", null, User.UserRole.USER, User.UserStatus.ACTIVE), 1L);
+    }
+
+    private static JwtTokenProvider newProvider(boolean cacheEnabled) {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(provider, "accessTokenExpiration", 86400000L);
+        ReflectionTestUtils.setField(provider, "verifiedCacheEnabled", cacheEnabled);
+        ReflectionTestUtils.setField(provider, "verifiedCacheMaxSize", 10000L);
+        ReflectionTestUtils.setField(provider, "verifiedCacheTtl", Duration.ofSeconds(60));
+        provider.init();
+        return provider;
+    }
+
+    private static SecretKey rebuildKey() {
+        return Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Claims legacyParse(String token) {
+        return Jwts.parser()
+                .verifyWith(rebuildKey())
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    @Benchmark
+    public boolean legacyFourParses() {
+        // validateToken(jwt)
+        legacyParse(token);
+        // getUsernameFromToken(jwt)
+        String username = legacyParse(token).getSubject();
+        // validateToken(jwt, userDetails): 用户名 + 过期时间各解析一次
+        boolean sameUser = legacyParse(token).getSubject().equals(username);
+        boolean notExpired = !legacyParse(token).getExpiration().before(new Date());
+        return sameUser && notExpired;
+    }
+
+    @Benchmark
+    public JwtClaims singleParse() {
+        return uncachedProvider.parseToken(token);
+    }
+
+    @Benchmark
+    public JwtClaims singleParseWithVerifiedCache() {
+        return cachedProvider.parseToken(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,122 @@
+package icu.nyat.dreamjournalsystem.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import com.theokanning.openai.client.OpenAiApi;
+import com.theokanning.openai.completion.chat.ChatCompletionRequest;
+import com.theokanning.openai.completion.chat.ChatMessage;
+import com.theokanning.openai.service.OpenAiService;
+import icu.nyat.dreamjournalsystem.ai.OpenAiClient;
+import okhttp3.OkHttpClient;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.env.MockEnvironment;
+import retrofit2.Retrofit;
+import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
+import retrofit2.converter.jackson.JacksonConverterFactory;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.theokanning.openai.service.OpenAiService.defaultClient;
+import static com.theokanning.openai.service.OpenAiService.defaultObjectMapper;
+
+/**
+ * LLM 客户端单次调用开销基准（本地 HTTP 桩，响应固定，排除模型耗时）
+ * <p>
+ * perCallClient 复现改造前 AISummaryServiceImpl 的做法：每次调用新建 OkHttpClient（独立连接池）、
+ * ObjectMapper、Retrofit 与 OpenAiService，每次都要建立新连接；sharedClient 使用单例 OpenAiClient。
+ * <p>
+ * 运行：mvn test-compile 后执行本类 main 方法（测试类路径）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OpenAiClientBenchmark {
+
+    private static final String RESPONSE = "{\"id\":\"chatcmpl-1\",\"object\":\"chat.completion\",\"created\":1700000000," +
+            "\"model\":\"stub\",\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\"," +
+            "\"content\":\"{\\\"summary\\\":\\\"梦境总结\\\",\\\"advice\\\":\\\"建议\\\"}\"},\"finish_reason\":\"stop\"}]," +
+            "\"usage\":{\"prompt_tokens\":100,\"completion_tokens\":20,\"total_tokens\":120}}";
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private String baseUrl;
+    private OpenAiClient sharedClient;
+    private ChatCompletionRequest request;
+
+    @Setup
+    public void setup() throws Exception {
+        // 桩服务默认开启 Nagle，复用连接时响应头与响应体分两次写出会与延迟 ACK 叠加出约 40ms 的停顿
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        byte[] body = RESPONSE.getBytes(StandardCharsets.UTF_8);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 128);
+        server.createContext("/v1/chat/completions", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        serverExecutor = Executors.newFixedThreadPool(4);
+        server.setExecutor(serverExecutor);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/";
+
+        sharedClient = new OpenAiClient(new MockEnvironment()
+                .withProperty("openai.api-key", "benchmark")
+                .withProperty("openai.base-url", baseUrl));
+        request = ChatCompletionRequest.builder()
+                .model("stub")
+                .messages(List.of(new ChatMessage("system", "你是一位专业的梦境分析师"),
+                        new ChatMessage("user", "请分析以下梦境内容：我梦见自己在云端飞翔")))
+                .temperature(0.7)
+                .maxTokens(2000)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        sharedClient.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public Object perCallClient() {
+        ObjectMapper mapper = defaultObjectMapper();
+        OkHttpClient client = defaultClient("benchmark", Duration.ofSeconds(10)).newBuilder().build();
+        Retrofit retrofit = new Retrofit.Builder()
+                .baseUrl(baseUrl)
+                .client(client)
+                .addConverterFactory(JacksonConverterFactory.create(mapper))
+                .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
+                .build();
+        return new OpenAiService(retrofit.create(OpenAiApi.class)).createChatCompletion(request);
+    }
+
+    @Benchmark
+    public Object sharedClient() {
+        return sharedClient.createChatCompletion(request);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(OpenAiClientBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
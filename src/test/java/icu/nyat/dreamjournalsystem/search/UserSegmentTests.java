@@ -0,0 +1,66 @@
+package icu.nyat.dreamjournalsystem.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 用户倒排索引段测试
+ */
+class UserSegmentTests {
+
+    private static List<Long> ids(List<UserSegment.Hit> hits) {
+        return hits.stream().map(UserSegment.Hit::dreamId).toList();
+    }
+
+    @Test
+    void matchesCjkBigramsAndLatinPrefixes() {
+        UserSegment segment = new UserSegment();
+        segment.upsert(1L, "飞翔在云端", "梦见自己在天空中自由飞翔", LocalDate.of(2024, 1, 1));
+        segment.upsert(2L, "Lucid flying", "I was flying over the ocean", LocalDate.of(2024, 1, 2));
+        segment.upsert(3L, "考试", "梦到考试迟到了", LocalDate.of(2024, 1, 3));
+
+        assertEquals(List.of(1L), ids(segment.search("飞翔", 10)));
+        assertEquals(List.of(1L), ids(segment.search("天空 自由", 10)));
+        assertEquals(List.of(3L, 1L), ids(segment.search("梦", 10)));
+        assertEquals(List.of(2L), ids(segment.search("fly", 10)));
+        assertEquals(List.of(2L), ids(segment.search("OCEAN fl", 10)));
+        assertTrue(segment.search("飞机", 10).isEmpty());
+    }
+
+    @Test
+    void updatesAndDeletesAreApplied() {
+        UserSegment segment = new UserSegment();
+        segment.upsert(1L, "旧标题", "梦见大海", LocalDate.of(2024, 1, 1));
+        segment.upsert(1L, "新标题", "梦见森林", LocalDate.of(2024, 1, 1));
+
+        assertTrue(segment.search("大海", 10).isEmpty());
+        assertEquals("新标题", segment.search("森林", 10).get(0).title());
+
+        segment.remove(1L);
+        assertTrue(segment.search("森林", 10).isEmpty());
+        assertEquals(0, segment.size());
+    }
+
+    @Test
+    void compactionKeepsLiveDocuments() {
+        UserSegment segment = new UserSegment();
+        for (long id = 1; id <= 300; id++) {
+            segment.upsert(id, "梦境" + id, "重复的梦 dream" + id, LocalDate.of(2024, 1, 1).plusDays(id));
+        }
+        // 反复修改触发压缩
+        for (int round = 0; round < 3; round++) {
+            for (long id = 1; id <= 100; id++) {
+                segment.upsert(id, "梦境" + id, "重复的梦 dream" + id, LocalDate.of(2024, 1, 1).plusDays(id));
+            }
+        }
+
+        assertEquals(300, segment.size());
+        assertEquals(300, segment.search("重复", 1000).size());
+        assertEquals(List.of(42L), ids(segment.search("dream42 ", 10)));
+        assertEquals(300L, segment.search("重复", 1).get(0).dreamId());
+    }
+}
@@ -0,0 +1,102 @@
+package icu.nyat.dreamjournalsystem.security;
+
+import icu.nyat.dreamjournalsystem.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 令牌吊销服务测试（使用内存存储代替 Redis）
+ */
+class TokenRevocationServiceTests {
+
+    private CountingStore store;
+    private TokenRevocationService service;
+
+    @BeforeEach
+    void setUp() {
+        store = new CountingStore();
+        service = new TokenRevocationService(store, 1000, 0.001);
+        service.init();
+    }
+
+    @Test
+    void revokedTokenIsRejected() {
+        JwtClaims claims = claims(UUID.randomUUID().toString(), Duration.ofMinutes(5));
+
+        service.revoke(claims);
+
+        assertTrue(service.isRevoked(claims));
+    }
+
+    @Test
+    void unrevokedTokenDoesNotHitStore() {
+        service.revoke(claims(UUID.randomUUID().toString(), Duration.ofMinutes(5)));
+        store.lookups.set(0);
+
+        for (int i = 0; i < 100; i++) {
+            assertFalse(service.isRevoked(claims(UUID.randomUUID().toString(), Duration.ofMinutes(5))));
+        }
+
+        assertTrue(store.lookups.get() <= 1, "布隆过滤器应拦截绝大多数查询");
+    }
+
+    @Test
+    void revocationFromOtherNodeIsVisible() {
+        TokenRevocationService otherNode = new TokenRevocationService(store, 1000, 0.001);
+        otherNode.init();
+        JwtClaims claims = claims(UUID.randomUUID().toString(), Duration.ofMinutes(5));
+
+        otherNode.revoke(claims);
+
+        assertTrue(service.isRevoked(claims));
+    }
+
+    @Test
+    void rebuildKeepsLiveRevocations() {
+        JwtClaims claims = claims(UUID.randomUUID().toString(), Duration.ofMinutes(5));
+        service.revoke(claims);
+
+        service.rebuildFilter();
+
+        assertTrue(service.isRevoked(claims));
+    }
+
+    @Test
+    void expiredOrLegacyTokensAreIgnored() {
+        JwtClaims expired = claims(UUID.randomUUID().toString(), Duration.ofMinutes(-1));
+        JwtClaims legacy = claims(null, Duration.ofMinutes(5));
+
+        service.revoke(expired);
+        service.revoke(legacy);
+
+        assertFalse(service.isRevoked(expired));
+        assertFalse(service.isRevoked(legacy));
+    }
+
+    private static JwtClaims claims(String tokenId, Duration remaining) {
+        Instant now = Instant.now();
+        return new JwtClaims(tokenId, "tester", 1L, User.UserRole.USER, 1L, JwtClaims.TYPE_ACCESS,
+                now, now.plus(remaining));
+    }
+
+    /**
+     * 统计回查次数的内存存储
+     */
+    private static class CountingStore extends InMemoryTokenRevocationStore {
+
+        private final AtomicInteger lookups = new AtomicInteger();
+
+        @Override
+        public boolean isRevoked(String tokenId) {
+            lookups.incrementAndGet();
+            return super.isRevoked(tokenId);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package icu.nyat.dreamjournalsystem.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 流式 CSV 读取器测试
+ */
+class CsvReaderTests {
+
+    @Test
+    void readsQuotedFieldsAndTracksLines() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader(
+                "title,content\r\n" +
+                "\"a,b\",\"第一行\n第二行\"\r\n" +
+                "\r\n" +
+                "\"say \"\"hi\"\"\",\n" +
+                "last,"), 100);
+
+        assertEquals(List.of("title", "content"), csv.next());
+        assertEquals(1, csv.getRecordLine());
+
+        assertEquals(List.of("a,b", "第一行\n第二行"), csv.next());
+        assertEquals(2, csv.getRecordLine());
+
+        assertEquals(List.of(), csv.next());
+        assertEquals(4, csv.getRecordLine());
+
+        assertEquals(List.of("say \"hi\"", ""), csv.next());
+        assertEquals(5, csv.getRecordLine());
+
+        assertEquals(List.of("last", ""), csv.next());
+        assertNull(csv.next());
+    }
+
+    @Test
+    void rejectsUnclosedQuoteAndOversizedField() {
+        CsvReader unclosed = new CsvReader(new StringReader("\"abc\nxyz"), 100);
+        assertThrows(IOException.class, unclosed::next);
+
+        CsvReader oversized = new CsvReader(new StringReader("abcdef"), 5);
+        assertThrows(IOException.class, oversized::next);
+    }
+}
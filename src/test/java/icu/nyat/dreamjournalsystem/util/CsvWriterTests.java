@@ -0,0 +1,29 @@
+package icu.nyat.dreamjournalsystem.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 流式 CSV 写入器测试
+ */
+class CsvWriterTests {
+
+    @Test
+    void quotesOnlyWhenNeededAndRoundTrips() throws IOException {
+        StringWriter out = new StringWriter();
+        CsvWriter csv = new CsvWriter(out);
+        csv.writeRecord("plain", 42, null, "a,b", "say \"hi\"", "第一行\n第二行", " padded");
+
+        assertEquals("plain,42,,\"a,b\",\"say \"\"hi\"\"\",\"第一行\n第二行\",\" padded\"\r\n", out.toString());
+
+        CsvReader reader = new CsvReader(new StringReader(out.toString()), 100);
+        assertEquals(List.of("plain", "42", "", "a,b", "say \"hi\"", "第一行\n第二行", " padded"), reader.next());
+        assertNull(reader.next());
+    }
+}